@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tömeges kiértékelés (BulkNutritionEvaluator) a receptenkénti motorhívással szemben.
+ * Mindkét mérés receptenkénti időt ad.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BulkEvaluationBenchmark {
+    private static final int RECIPES = 10_000;
+    private static final int CATALOGUE = 500;
+
+    @Param({"5", "20"})
+    int ingredients;
+
+    private Object engine;
+    private Object[] recipes;
+    private Object result;
+    private Object batch;
+    private double[] out;
+    private double[] totalWeights;
+
+    @Setup
+    public void setup() throws Throwable {
+        SplittableRandom random = new SplittableRandom(19);
+        Object database = Internals.newDatabase();
+        String[] names = new String[CATALOGUE];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "Összetevő " + i;
+            Object info = Internals.newNutritionInfo();
+            for (int n = 0; n < Internals.NUTRIENT_COUNT; n++) {
+                Internals.setValue(info, n, random.nextDouble(0, 100));
+            }
+            Internals.addIngredient(database, names[i], info);
+        }
+
+        batch = Internals.newBatch(Internals.matrixSnapshot(database));
+        recipes = new Object[RECIPES];
+        for (int r = 0; r < RECIPES; r++) {
+            recipes[r] = Internals.newRecipe("Recept " + r);
+            for (int k = 0; k < ingredients; k++) {
+                Internals.addToRecipe(recipes[r], names[random.nextInt(CATALOGUE)], random.nextInt(1, 500));
+            }
+            Internals.addToBatch(batch, recipes[r]);
+        }
+        engine = Internals.newEngine(database);
+        result = Internals.newNutritionInfo();
+        out = new double[RECIPES * Internals.NUTRIENT_COUNT];
+        totalWeights = new double[RECIPES];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPES)
+    public double[] bulk() throws Throwable {
+        Internals.evaluateBatch(batch, out, totalWeights);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPES)
+    public double perRecipeEngine() throws Throwable {
+        double sum = 0;
+        for (Object recipe : recipes) {
+            sum += Internals.calculateTotalNutrition(engine, recipe, result);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Recept tápérték számítás különböző receptméretekkel (gyorsítótár nélkül)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CalculationBenchmark {
+    @Param({"3", "10", "50", "200"})
+    int ingredients;
+
+    private Object engine;
+    private Object recipe;
+    private Object raw;
+    private Object baked;
+    private double bakedWeight;
+
+    @Setup
+    public void setup() throws Throwable {
+        SplittableRandom random = new SplittableRandom(16);
+        Object database = Internals.newDatabase();
+        recipe = Internals.newRecipe("Mérés");
+        double totalWeight = 0;
+        for (int i = 0; i < ingredients; i++) {
+            String name = "Összetevő " + i;
+            Object info = Internals.newNutritionInfo();
+            for (int n = 0; n < Internals.NUTRIENT_COUNT; n++) {
+                Internals.setValue(info, n, random.nextDouble(0, 100));
+            }
+            Internals.addIngredient(database, name, info);
+            double weight = random.nextInt(1, 500);
+            Internals.addToRecipe(recipe, name, weight);
+            totalWeight += weight;
+        }
+        engine = Internals.newEngine(database);
+        raw = Internals.newNutritionInfo();
+        baked = Internals.newNutritionInfo();
+        bakedWeight = totalWeight * 0.85;
+    }
+
+    @Benchmark
+    public double calculate() throws Throwable {
+        return Internals.calculateTotalNutrition(engine, recipe, raw);
+    }
+
+    @Benchmark
+    public double calculateWithBaking() throws Throwable {
+        return Internals.calculateTotalNutrition(engine, recipe, bakedWeight, raw, baked);
+    }
+}
@@ -0,0 +1,231 @@
+package benchmarks;
+
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Hozzáférés az alkalmazás csomag-privát osztályaihoz a mérésekből.
+ *
+ * Az alkalmazás az alapértelmezett (névtelen) csomagban van, a JMH viszont csak
+ * nevesített csomagban enged mérést, és onnan az alapértelmezett csomag nem
+ * importálható. Ezért a mért metódusokat static final MethodHandle-ökön át hívjuk,
+ * amelyeket a JIT konstansként kezel és beépít, így a közvetítés nem torzítja a
+ * mérést. A handle-ökben az alkalmazás osztályai Object-re cserélődnek, hogy
+ * invokeExact-tal hívhatók legyenek.
+ */
+final class Internals {
+    static final int NUTRIENT_COUNT;
+
+    private static final MethodHandle NEW_DATABASE;
+    private static final MethodHandle ADD_INGREDIENT;
+    private static final MethodHandle NEW_ENGINE;
+    private static final MethodHandle CALCULATE;
+    private static final MethodHandle CALCULATE_BAKED;
+    private static final MethodHandle APPLY_CORRECTION_FACTOR;
+    private static final MethodHandle NEW_NUTRITION_INFO;
+    private static final MethodHandle GET_VALUE;
+    private static final MethodHandle SET_VALUE;
+    private static final MethodHandle GET_VALUE_BY_NAME;
+    private static final MethodHandle SET_VALUE_BY_NAME;
+    private static final MethodHandle NUTRIENT_NAME;
+    private static final MethodHandle NEW_RECIPE;
+    private static final MethodHandle ADD_TO_RECIPE;
+    private static final MethodHandle PARSE_PRODUCTS;
+    private static final MethodHandle ENCODE_RECIPE;
+    private static final MethodHandle DECODE_RECIPE;
+    private static final MethodHandle WRITE_RECIPE;
+    private static final MethodHandle READ_RECIPE;
+    private static final MethodHandle MATRIX_SNAPSHOT;
+    private static final MethodHandle NEW_BATCH;
+    private static final MethodHandle ADD_TO_BATCH;
+    private static final MethodHandle EVALUATE_BATCH;
+
+    static {
+        try {
+            Class<?> database = Class.forName("NutritionDatabase");
+            Class<?> engine = Class.forName("NutritionEngine");
+            Class<?> info = Class.forName("NutritionInfo");
+            Class<?> recipe = Class.forName("Recipe");
+            Class<?> parser = Class.forName("OpenFoodFactsStreamParser");
+            Class<?> codec = Class.forName("RecipeCodec");
+            Class<?> matrix = Class.forName("NutrientMatrix");
+            Class<?> evaluator = Class.forName("BulkNutritionEvaluator");
+            Class<?> batch = Class.forName("BulkNutritionEvaluator$Batch");
+
+            NUTRIENT_COUNT = (int) lookup(info).findStaticGetter(info, "NUTRIENT_COUNT", int.class).invoke();
+
+            NEW_DATABASE = constructor(database);
+            ADD_INGREDIENT = virtual(database, "addIngredient", void.class, String.class, info);
+            NEW_ENGINE = constructor(engine, database);
+            CALCULATE = virtual(engine, "calculateTotalNutrition", double.class, recipe, info);
+            CALCULATE_BAKED = virtual(engine, "calculateTotalNutrition", double.class,
+                    recipe, double.class, info, info);
+            APPLY_CORRECTION_FACTOR = statik(engine, "applyCorrectionFactor", void.class,
+                    info, double.class, info);
+            NEW_NUTRITION_INFO = constructor(info);
+            GET_VALUE = virtual(info, "getValue", double.class, int.class);
+            SET_VALUE = virtual(info, "setValue", void.class, int.class, double.class);
+            GET_VALUE_BY_NAME = virtual(info, "getValue", double.class, String.class);
+            SET_VALUE_BY_NAME = virtual(info, "setValue", void.class, String.class, double.class);
+            NUTRIENT_NAME = statik(info, "getNutrientName", String.class, int.class);
+            NEW_RECIPE = constructor(recipe, String.class);
+            ADD_TO_RECIPE = virtual(recipe, "addIngredient", void.class, String.class, double.class);
+            PARSE_PRODUCTS = statik(parser, "parse", List.class, InputStream.class);
+            ENCODE_RECIPE = statik(codec, "encode", ByteBuffer.class, recipe);
+            DECODE_RECIPE = statik(codec, "decode", recipe, ByteBuffer.class);
+            WRITE_RECIPE = statik(codec, "write", void.class, Path.class, recipe);
+            READ_RECIPE = statik(codec, "read", recipe, Path.class);
+            MATRIX_SNAPSHOT = statik(matrix, "snapshot", matrix, database);
+            NEW_BATCH = constructor(batch, matrix);
+            ADD_TO_BATCH = virtual(batch, "add", int.class, recipe);
+            EVALUATE_BATCH = statik(evaluator, "evaluate", void.class, batch, double[].class, double[].class);
+        } catch (Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Internals() {
+    }
+
+    static Object newDatabase() throws Throwable {
+        return (Object) NEW_DATABASE.invokeExact();
+    }
+
+    static void addIngredient(Object database, String name, Object info) throws Throwable {
+        ADD_INGREDIENT.invokeExact(database, name, info);
+    }
+
+    static Object newEngine(Object database) throws Throwable {
+        return (Object) NEW_ENGINE.invokeExact(database);
+    }
+
+    static double calculateTotalNutrition(Object engine, Object recipe, Object result) throws Throwable {
+        return (double) CALCULATE.invokeExact(engine, recipe, result);
+    }
+
+    static double calculateTotalNutrition(Object engine, Object recipe, double bakedWeight,
+                                          Object raw, Object baked) throws Throwable {
+        return (double) CALCULATE_BAKED.invokeExact(engine, recipe, bakedWeight, raw, baked);
+    }
+
+    static void applyCorrectionFactor(Object original, double factor, Object result) throws Throwable {
+        APPLY_CORRECTION_FACTOR.invokeExact(original, factor, result);
+    }
+
+    static Object newNutritionInfo() throws Throwable {
+        return (Object) NEW_NUTRITION_INFO.invokeExact();
+    }
+
+    static double getValue(Object info, int index) throws Throwable {
+        return (double) GET_VALUE.invokeExact(info, index);
+    }
+
+    static void setValue(Object info, int index, double value) throws Throwable {
+        SET_VALUE.invokeExact(info, index, value);
+    }
+
+    static double getValue(Object info, String nutrient) throws Throwable {
+        return (double) GET_VALUE_BY_NAME.invokeExact(info, nutrient);
+    }
+
+    static void setValue(Object info, String nutrient, double value) throws Throwable {
+        SET_VALUE_BY_NAME.invokeExact(info, nutrient, value);
+    }
+
+    static String nutrientName(int index) throws Throwable {
+        return (String) NUTRIENT_NAME.invokeExact(index);
+    }
+
+    static Object newRecipe(String name) throws Throwable {
+        return (Object) NEW_RECIPE.invokeExact(name);
+    }
+
+    static void addToRecipe(Object recipe, String name, double weight) throws Throwable {
+        ADD_TO_RECIPE.invokeExact(recipe, name, weight);
+    }
+
+    static List<?> parseProducts(InputStream in) throws Throwable {
+        return (List<?>) PARSE_PRODUCTS.invokeExact(in);
+    }
+
+    static ByteBuffer encodeRecipe(Object recipe) throws Throwable {
+        return (ByteBuffer) ENCODE_RECIPE.invokeExact(recipe);
+    }
+
+    static Object decodeRecipe(ByteBuffer buffer) throws Throwable {
+        return (Object) DECODE_RECIPE.invokeExact(buffer);
+    }
+
+    static void writeRecipe(Path file, Object recipe) throws Throwable {
+        WRITE_RECIPE.invokeExact(file, recipe);
+    }
+
+    static Object readRecipe(Path file) throws Throwable {
+        return (Object) READ_RECIPE.invokeExact(file);
+    }
+
+    static Object matrixSnapshot(Object database) throws Throwable {
+        return (Object) MATRIX_SNAPSHOT.invokeExact(database);
+    }
+
+    static Object newBatch(Object matrix) throws Throwable {
+        return (Object) NEW_BATCH.invokeExact(matrix);
+    }
+
+    static int addToBatch(Object batch, Object recipe) throws Throwable {
+        return (int) ADD_TO_BATCH.invokeExact(batch, recipe);
+    }
+
+    static void evaluateBatch(Object batch, double[] out, double[] totalWeights) throws Throwable {
+        EVALUATE_BATCH.invokeExact(batch, out, totalWeights);
+    }
+
+    /**
+     * Teljes jogú lookup a célosztályhoz (a névtelen modulon belül engedélyezett)
+     */
+    private static MethodHandles.Lookup lookup(Class<?> target) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(target, MethodHandles.lookup());
+    }
+
+    private static MethodHandle constructor(Class<?> owner, Class<?>... parameters) throws ReflectiveOperationException {
+        MethodHandle handle = lookup(owner).findConstructor(owner, MethodType.methodType(void.class, parameters));
+        return hide(handle);
+    }
+
+    private static MethodHandle virtual(Class<?> owner, String name, Class<?> returnType, Class<?>... parameters)
+            throws ReflectiveOperationException {
+        MethodHandle handle = lookup(owner).findVirtual(owner, name, MethodType.methodType(returnType, parameters));
+        return hide(handle);
+    }
+
+    private static MethodHandle statik(Class<?> owner, String name, Class<?> returnType, Class<?>... parameters)
+            throws ReflectiveOperationException {
+        MethodHandle handle = lookup(owner).findStatic(owner, name, MethodType.methodType(returnType, parameters));
+        return hide(handle);
+    }
+
+    /**
+     * Az alkalmazás (névtelen csomagbeli) típusainak cseréje Object-re a handle típusában
+     */
+    private static MethodHandle hide(MethodHandle handle) {
+        MethodType type = handle.type();
+        for (int i = 0; i < type.parameterCount(); i++) {
+            if (isInternal(type.parameterType(i))) {
+                type = type.changeParameterType(i, Object.class);
+            }
+        }
+        if (isInternal(type.returnType())) {
+            type = type.changeReturnType(Object.class);
+        }
+        return handle.asType(type);
+    }
+
+    private static boolean isInternal(Class<?> type) {
+        return !type.isPrimitive() && type.getPackageName().isEmpty();
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * NutritionInfo elérés: index és név szerinti get/set, valamint a korrekciós faktor
+ * alkalmazása. Minden mérés a teljes tápanyag listán megy végig.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NutritionInfoBenchmark {
+    private Object info;
+    private Object result;
+    private String[] names;
+
+    @Setup
+    public void setup() throws Throwable {
+        info = Internals.newNutritionInfo();
+        result = Internals.newNutritionInfo();
+        names = new String[Internals.NUTRIENT_COUNT];
+        for (int n = 0; n < names.length; n++) {
+            names[n] = Internals.nutrientName(n);
+            Internals.setValue(info, n, n * 1.5);
+        }
+    }
+
+    @Benchmark
+    public double getByIndex() throws Throwable {
+        double sum = 0;
+        for (int n = 0; n < Internals.NUTRIENT_COUNT; n++) {
+            sum += Internals.getValue(info, n);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Object setByIndex() throws Throwable {
+        for (int n = 0; n < Internals.NUTRIENT_COUNT; n++) {
+            Internals.setValue(result, n, n);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public double getByName() throws Throwable {
+        double sum = 0;
+        for (String name : names) {
+            sum += Internals.getValue(info, name);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Object setByName() throws Throwable {
+        for (int n = 0; n < names.length; n++) {
+            Internals.setValue(result, names[n], n);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Object applyCorrectionFactor() throws Throwable {
+        Internals.applyCorrectionFactor(info, 1.25, result);
+        return result;
+    }
+}
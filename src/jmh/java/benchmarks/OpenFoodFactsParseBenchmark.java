@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * OpenFoodFacts keresési válasz feldolgozása (24 termékes minta válasz a
+ * resources könyvtárból). Összehasonlításként a korábbi, json-simple fa alapú
+ * feldolgozás is mérve van.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OpenFoodFactsParseBenchmark {
+    private static final String RESPONSE = "/off-search-response.json";
+
+    private byte[] response;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream in = OpenFoodFactsParseBenchmark.class.getResourceAsStream(RESPONSE)) {
+            if (in == null) {
+                throw new IOException("Hiányzó minta válasz: " + RESPONSE);
+            }
+            response = in.readAllBytes();
+        }
+    }
+
+    @Benchmark
+    public Object streamParser() throws Throwable {
+        return Internals.parseProducts(new ByteArrayInputStream(response));
+    }
+
+    @Benchmark
+    public Object jsonSimpleTree() throws Exception {
+        JSONObject root = (JSONObject) new JSONParser().parse(
+                new InputStreamReader(new ByteArrayInputStream(response), StandardCharsets.UTF_8));
+        JSONArray products = (JSONArray) root.get("products");
+        double sum = 0;
+        for (Object product : products) {
+            JSONObject nutriments = (JSONObject) ((JSONObject) product).get("nutriments");
+            Object energy = nutriments != null ? nutriments.get("energy-kcal_100g") : null;
+            if (energy instanceof Number) {
+                sum += ((Number) energy).doubleValue();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Recept mentése és betöltése: kódolás/dekódolás memóriában, illetve fájlba írás és olvasás
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecipePersistenceBenchmark {
+    @Param({"3", "10", "50", "200"})
+    int ingredients;
+
+    private Object recipe;
+    private ByteBuffer encoded;
+    private Path directory;
+    private Path saved;
+    private Path target;
+
+    @Setup
+    public void setup() throws Throwable {
+        recipe = Internals.newRecipe("Kovászos kenyér");
+        for (int i = 0; i < ingredients; i++) {
+            Internals.addToRecipe(recipe, "Összetevő " + i, 10 + i);
+        }
+        encoded = Internals.encodeRecipe(recipe);
+        directory = Files.createTempDirectory("recipe-bench");
+        saved = directory.resolve("saved.recipe");
+        target = directory.resolve("target.recipe");
+        Internals.writeRecipe(saved, recipe);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(saved);
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public ByteBuffer encode() throws Throwable {
+        return Internals.encodeRecipe(recipe);
+    }
+
+    @Benchmark
+    public Object decode() throws Throwable {
+        return Internals.decodeRecipe(encoded.duplicate());
+    }
+
+    @Benchmark
+    public Path save() throws Throwable {
+        Internals.writeRecipe(target, recipe);
+        return target;
+    }
+
+    @Benchmark
+    public Object load() throws Throwable {
+        return Internals.readRecipe(saved);
+    }
+}
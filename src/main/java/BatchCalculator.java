@@ -0,0 +1,336 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Parancssori kötegelt kalkulátor, amely egy könyvtárfa összes .recipe fájlját
+ * kiértékeli egy fork-join poolon, és az eredményeket CSV vagy JSON Lines
+ * formátumban folyamatosan kiírja.
+ *
+ * Használat:
+ *   java BatchCalculator <könyvtár> [--manifest <fájl>] [--format csv|jsonl]
+ *                        [--output <fájl>] [--threads <n>] [--database <fájl>]
+ *
+ * A manifest egy Properties fájl, amely a recept könyvtárhoz viszonyított útvonalához
+ * (perjel elválasztóval) rendeli a sütés utáni súlyt grammban. Ha nincs megadva,
+ * a könyvtár gyökerében lévő baked-weights.properties fájlt használjuk, ha létezik.
+ */
+class BatchCalculator {
+    static final String DEFAULT_MANIFEST = "baked-weights.properties";
+
+    enum Format { CSV, JSONL }
+
+    private final Path root;
+    private final Properties bakedWeights;
+    private final Format format;
+    private final Writer out;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    // Az ismétlődő (azonos összetevőjű és súlyú) receptek eredményének gyorsítótára
+    static final int RESULT_CACHE_SIZE = 10_000;
+    // A munkások közös gyorsítótára sávokra osztva, hogy ne egyetlen záron várakozzanak
+    static final int RESULT_CACHE_STRIPES = 64;
+    private final NutritionResultCache resultCache;
+
+    // Szálankénti munkaterület: motor, eredmény pufferek és sor puffer
+    private final ThreadLocal<Worker> workers;
+
+    BatchCalculator(Path root, Properties bakedWeights, Format format,
+                    NutritionDatabase database, Writer out) {
+        this.root = root;
+        this.bakedWeights = bakedWeights;
+        this.format = format;
+        this.out = out;
+        this.resultCache = new NutritionResultCache(database, RESULT_CACHE_SIZE, RESULT_CACHE_STRIPES);
+        this.workers = ThreadLocal.withInitial(() -> new Worker(database, resultCache));
+    }
+
+    private static final class Worker {
+        final NutritionEngine engine;
+        final NutritionInfo raw = new NutritionInfo();
+        final NutritionInfo baked = new NutritionInfo();
+        final StringBuilder line = new StringBuilder(1024);
+
+        Worker(NutritionDatabase database, NutritionResultCache cache) {
+            engine = new NutritionEngine(database, cache);
+        }
+    }
+
+    /**
+     * Az összes recept kiértékelése a megadott párhuzamossággal
+     */
+    void run(int threads) throws IOException, InterruptedException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().toLowerCase().endsWith(".recipe"))
+                    .collect(Collectors.toList());
+        }
+
+        if (format == Format.CSV) {
+            writeLine(csvHeader());
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.submit(() -> files.parallelStream().forEach(this::process)).get();
+        } catch (ExecutionException e) {
+            throw new IOException("Hiba a kötegelt feldolgozás során", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        out.flush();
+    }
+
+    long getProcessedCount() {
+        return processed.get();
+    }
+
+    long getFailedCount() {
+        return failed.get();
+    }
+
+    long getCacheHitCount() {
+        return resultCache.getHits();
+    }
+
+    private void process(Path file) {
+        Worker worker = workers.get();
+        StringBuilder line = worker.line;
+        line.setLength(0);
+
+        String relative = relativeName(file);
+        try {
+            Recipe recipe = RecipeCodec.read(file);
+
+            double bakedWeight = 0;
+            String bakedValue = bakedWeights.getProperty(relative);
+            if (bakedValue != null) {
+                bakedWeight = Double.parseDouble(bakedValue.trim());
+            }
+            double totalWeight = worker.engine.calculateTotalNutrition(recipe, bakedWeight, worker.raw,
+                    bakedValue != null ? worker.baked : null);
+
+            if (format == Format.CSV) {
+                appendCsv(line, relative, recipe.getName(), totalWeight, bakedWeight, worker);
+            } else {
+                appendJson(line, relative, recipe.getName(), totalWeight, bakedWeight, worker);
+            }
+            processed.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            if (format == Format.JSONL) {
+                line.append("{\"file\":\"").append(JSONObject.escape(relative))
+                        .append("\",\"error\":\"").append(JSONObject.escape(String.valueOf(e.getMessage())))
+                        .append("\"}");
+            } else {
+                System.err.println("Hiba (" + relative + "): " + e.getMessage());
+                return;
+            }
+        }
+
+        try {
+            writeLine(line);
+        } catch (IOException e) {
+            throw new RuntimeException("Nem sikerült az eredmény kiírása", e);
+        }
+    }
+
+    private void writeLine(CharSequence line) throws IOException {
+        synchronized (out) {
+            out.append(line).append('\n');
+        }
+    }
+
+    private String relativeName(Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static String csvHeader() {
+        StringBuilder header = new StringBuilder("file,recipe,totalWeight,bakedWeight");
+        for (int n = 0; n < NutritionInfo.NUTRIENT_COUNT; n++) {
+            header.append(',').append(NutritionInfo.getNutrientName(n));
+        }
+        for (int n = 0; n < NutritionInfo.NUTRIENT_COUNT; n++) {
+            header.append(",baked_").append(NutritionInfo.getNutrientName(n));
+        }
+        return header.toString();
+    }
+
+    private static void appendCsv(StringBuilder line, String file, String recipeName,
+                                  double totalWeight, double bakedWeight, Worker worker) {
+        appendCsvField(line, file);
+        line.append(',');
+        appendCsvField(line, recipeName);
+        line.append(',').append(totalWeight).append(',');
+        if (bakedWeight > 0) {
+            line.append(bakedWeight);
+        }
+        for (int n = 0; n < NutritionInfo.NUTRIENT_COUNT; n++) {
+            line.append(',').append(worker.raw.getValue(n));
+        }
+        for (int n = 0; n < NutritionInfo.NUTRIENT_COUNT; n++) {
+            line.append(',');
+            if (bakedWeight > 0) {
+                line.append(worker.baked.getValue(n));
+            }
+        }
+    }
+
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static void appendJson(StringBuilder line, String file, String recipeName,
+                                   double totalWeight, double bakedWeight, Worker worker) {
+        line.append("{\"file\":\"").append(JSONObject.escape(file)).append('"');
+        line.append(",\"recipe\":");
+        if (recipeName == null) {
+            line.append("null");
+        } else {
+            line.append('"').append(JSONObject.escape(recipeName)).append('"');
+        }
+        line.append(",\"totalWeight\":").append(totalWeight);
+        if (bakedWeight > 0) {
+            line.append(",\"bakedWeight\":").append(bakedWeight);
+        }
+        line.append(",\"per100g\":");
+        appendJsonValues(line, worker.raw);
+        if (bakedWeight > 0) {
+            line.append(",\"baked\":");
+            appendJsonValues(line, worker.baked);
+        }
+        line.append('}');
+    }
+
+    private static void appendJsonValues(StringBuilder line, NutritionInfo info) {
+        line.append('{');
+        for (int n = 0; n < NutritionInfo.NUTRIENT_COUNT; n++) {
+            if (n > 0) {
+                line.append(',');
+            }
+            line.append('"').append(NutritionInfo.getNutrientName(n)).append("\":").append(info.getValue(n));
+        }
+        line.append('}');
+    }
+
+    private static Properties loadManifest(Path manifest) throws IOException {
+        Properties properties = new Properties();
+        if (manifest != null && Files.isRegularFile(manifest)) {
+            try (Reader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+    private static void printUsage() {
+        System.err.println("Használat: java BatchCalculator <könyvtár> [--manifest <fájl>] "
+                + "[--format csv|jsonl] [--output <fájl>] [--threads <n>] [--database <fájl>]");
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            printUsage();
+            System.exit(2);
+        }
+
+        Path root = Paths.get(args[0]);
+        Path manifest = root.resolve(DEFAULT_MANIFEST);
+        Format format = Format.CSV;
+        Path output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path databaseFile = null;
+
+        for (int i = 1; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                printUsage();
+                System.exit(2);
+            }
+            switch (args[i]) {
+                case "--manifest":
+                    manifest = Paths.get(args[++i]);
+                    break;
+                case "--format":
+                    format = Format.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--output":
+                    output = Paths.get(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--database":
+                    databaseFile = Paths.get(args[++i]);
+                    break;
+                default:
+                    printUsage();
+                    System.exit(2);
+            }
+        }
+
+        if (!Files.isDirectory(root)) {
+            System.err.println("A megadott könyvtár nem létezik: " + root);
+            System.exit(2);
+        }
+
+        Writer out = output != null
+                ? Files.newBufferedWriter(output, StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+
+        long start = System.nanoTime();
+        NutritionDatabase database = databaseFile != null
+                ? NutritionDatabase.open(databaseFile) : new NutritionDatabase();
+        BatchCalculator calculator = new BatchCalculator(
+                root, loadManifest(manifest), format, database, out);
+        try {
+            calculator.run(threads);
+        } finally {
+            if (output != null) {
+                out.close();
+            } else {
+                out.flush();
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.err.printf("Feldolgozva: %d recept, hibás: %d, gyorsítótár találat: %d, idő: %d ms (%d szál)%n",
+                calculator.getProcessedCount(), calculator.getFailedCount(), calculator.getCacheHitCount(),
+                elapsedMillis, threads);
+        if (calculator.getFailedCount() > 0) {
+            System.exit(1);
+        }
+    }
+}
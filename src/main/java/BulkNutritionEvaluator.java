@@ -0,0 +1,206 @@
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Sok recept egyidejű kiértékelése egy NutrientMatrix alapján.
+ *
+ * A receptek tömören, CSR formában (recept -> [mátrix sor, súly] lista) kerülnek
+ * egy Batch-be, a kiértékelés pedig receptenként a mátrix sorainak súlyozott
+ * összegét számolja közvetlenül a kimeneti tömbbe. A belső ciklus két összefüggő
+ * double tömbön megy végig, map lookup, objektum elérés és ciklusfüggőség nélkül,
+ * abban a formában, amelyet a HotSpot C2 fordító (SuperWord) a gép vektor
+ * szélességének megfelelő SIMD utasításokra tud fordítani.
+ *
+ * A kimenet sorfolytonos: az r. recept 100g-ra vonatkoztatott tápértékei az
+ * out[r * COLUMNS, (r + 1) * COLUMNS) tartományban vannak.
+ */
+final class BulkNutritionEvaluator {
+    static final int COLUMNS = NutrientMatrix.COLUMNS;
+
+    private BulkNutritionEvaluator() {
+    }
+
+    /**
+     * Receptek tömör (CSR) listája egy mátrix soraira hivatkozva. Építés közben nem
+     * szálbiztos; felépítés után több szál is kiértékelheti egyszerre (más-más tartományt).
+     */
+    static final class Batch {
+        private final NutrientMatrix matrix;
+        // Az r. recept összetevői a [offsets[r], offsets[r + 1]) tartományban
+        private int[] offsets = new int[17];
+        private int[] rows = new int[64];
+        private double[] weights = new double[64];
+        private int recipeCount;
+
+        Batch(NutrientMatrix matrix) {
+            this.matrix = matrix;
+        }
+
+        NutrientMatrix getMatrix() {
+            return matrix;
+        }
+
+        /**
+         * Recept hozzáadása; visszatérési érték a recept indexe a kötegben
+         *
+         * @throws IllegalArgumentException ha egy összetevő nincs a mátrixban
+         */
+        int add(Recipe recipe) {
+            Map<String, Double> ingredients = recipe.ingredientsView();
+            int start = offsets[recipeCount];
+            ensureCapacity(start + ingredients.size());
+            int i = start;
+            for (Map.Entry<String, Double> entry : ingredients.entrySet()) {
+                int row = matrix.indexOf(entry.getKey());
+                if (row < 0) {
+                    throw new IllegalArgumentException(
+                            "Nem található tápérték információ a következő összetevőhöz: " + entry.getKey());
+                }
+                rows[i] = row;
+                weights[i] = entry.getValue();
+                i++;
+            }
+            return commit(i);
+        }
+
+        /**
+         * Recept hozzáadása közvetlenül mátrix sor indexekkel (pl. what-if változatokhoz)
+         */
+        int add(int[] recipeRows, double[] recipeWeights, int count) {
+            int start = offsets[recipeCount];
+            ensureCapacity(start + count);
+            for (int k = 0; k < count; k++) {
+                if (recipeRows[k] < 0 || recipeRows[k] >= matrix.getRowCount()) {
+                    throw new IllegalArgumentException("Érvénytelen mátrix sor: " + recipeRows[k]);
+                }
+            }
+            System.arraycopy(recipeRows, 0, rows, start, count);
+            System.arraycopy(recipeWeights, 0, weights, start, count);
+            return commit(start + count);
+        }
+
+        int size() {
+            return recipeCount;
+        }
+
+        /**
+         * Az összes recept összetevőinek száma
+         */
+        int entryCount() {
+            return offsets[recipeCount];
+        }
+
+        void clear() {
+            recipeCount = 0;
+        }
+
+        private int commit(int end) {
+            if (recipeCount + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[++recipeCount] = end;
+            return recipeCount - 1;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > rows.length) {
+                int size = Math.max(capacity, rows.length * 2);
+                rows = Arrays.copyOf(rows, size);
+                weights = Arrays.copyOf(weights, size);
+            }
+        }
+    }
+
+    /**
+     * A köteg összes receptjének kiértékelése.
+     *
+     * @param out          legalább batch.size() * COLUMNS hosszú; a 100g-os tápértékek
+     * @param totalWeights a receptek összsúlya (lehet null); nem pozitív összsúlyú recept
+     *                     esetén az eredmény NaN, a köteg többi receptje ettől függetlenül számolódik
+     */
+    static void evaluate(Batch batch, double[] out, double[] totalWeights) {
+        evaluate(batch, 0, batch.size(), out, totalWeights);
+    }
+
+    /**
+     * A [from, to) receptek kiértékelése; a kimenetben is a recept indexe szerinti helyre ír,
+     * így a köteg tartományai párhuzamosan, külön szálakon is kiértékelhetők
+     */
+    static void evaluate(Batch batch, int from, int to, double[] out, double[] totalWeights) {
+        if (from < 0 || to > batch.recipeCount || from > to) {
+            throw new IllegalArgumentException("Érvénytelen recept tartomány: " + from + ".." + to);
+        }
+        if (out.length < to * COLUMNS) {
+            throw new IllegalArgumentException("A kimeneti tömb túl rövid.");
+        }
+        double[] values = batch.matrix.values;
+        int[] offsets = batch.offsets;
+        int[] rows = batch.rows;
+        double[] weights = batch.weights;
+
+        for (int r = from; r < to; r++) {
+            int target = r * COLUMNS;
+            Arrays.fill(out, target, target + COLUMNS, 0.0);
+            double totalWeight = 0;
+            for (int k = offsets[r], end = offsets[r + 1]; k < end; k++) {
+                double weight = weights[k];
+                accumulate(values, rows[k] * COLUMNS, weight / 100.0, out, target);
+                totalWeight += weight;
+            }
+            finish(out, target, totalWeight);
+            if (totalWeights != null) {
+                totalWeights[r] = totalWeight;
+            }
+        }
+    }
+
+    /**
+     * What-if sorozat: ugyanazon összetevők (recipeRows) sok súly változatának kiértékelése.
+     * A weightSets az s. változat súlyait a [s * count, (s + 1) * count) tartományban tartalmazza.
+     *
+     * @param out legalább sets * COLUMNS hosszú
+     */
+    static void sweep(NutrientMatrix matrix, int[] recipeRows, int count, double[] weightSets, int sets,
+                      double[] out, double[] totalWeights) {
+        if (weightSets.length < sets * count || out.length < sets * COLUMNS) {
+            throw new IllegalArgumentException("A súly vagy a kimeneti tömb túl rövid.");
+        }
+        for (int k = 0; k < count; k++) {
+            if (recipeRows[k] < 0 || recipeRows[k] >= matrix.getRowCount()) {
+                throw new IllegalArgumentException("Érvénytelen mátrix sor: " + recipeRows[k]);
+            }
+        }
+        double[] values = matrix.values;
+        for (int s = 0; s < sets; s++) {
+            int target = s * COLUMNS;
+            Arrays.fill(out, target, target + COLUMNS, 0.0);
+            double totalWeight = 0;
+            for (int k = 0; k < count; k++) {
+                double weight = weightSets[s * count + k];
+                accumulate(values, recipeRows[k] * COLUMNS, weight / 100.0, out, target);
+                totalWeight += weight;
+            }
+            finish(out, target, totalWeight);
+            if (totalWeights != null) {
+                totalWeights[s] = totalWeight;
+            }
+        }
+    }
+
+    /**
+     * out[target + n] += values[source + n] * factor; a vektorizálható mag
+     */
+    private static void accumulate(double[] values, int source, double factor, double[] out, int target) {
+        for (int n = 0; n < COLUMNS; n++) {
+            out[target + n] += values[source + n] * factor;
+        }
+    }
+
+    private static void finish(double[] out, int target, double totalWeight) {
+        // Nem pozitív összsúlynál NaN (a tömeges feldolgozás nem áll meg egy hibás recepten)
+        double factor = totalWeight > 0 ? 100.0 / totalWeight : Double.NaN;
+        for (int n = 0; n < COLUMNS; n++) {
+            out[target + n] *= factor;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+import javax.swing.SwingUtilities;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Receptszámítás háttérszálon, a grafikus felület eseménykezelő szálán (EDT) kívül.
+ *
+ * Minden kérés új generációs sorszámot kap, és a korábbi, még el nem indult kérést
+ * töröljük. A késleltetett (debounce) kérések csak a megadott idő után indulnak, így
+ * gyors egymás utáni szerkesztésekből egyetlen számítás lesz. Egy már futó számítást
+ * nem szakítunk meg, de ha közben újabb kérés érkezett, az eredményét eldobjuk: az
+ * EDT-re csak a legutolsó kérés kész eredménye kerül, a megjelenítéshez.
+ *
+ * A submit és a cancel az EDT-ről hívandó; a visszahívások mindig az EDT-n futnak.
+ */
+final class CalculationPipeline implements AutoCloseable {
+    private static final int RESULT_CACHE_SIZE = 256;
+
+    /**
+     * Egy kész számítás eredménye
+     */
+    static final class Result {
+        final NutritionInfo raw;
+        // null, ha nem volt sütési korrekció
+        final NutritionInfo baked;
+        final double totalWeight;
+        final double bakedWeight;
+
+        Result(NutritionInfo raw, NutritionInfo baked, double totalWeight, double bakedWeight) {
+            this.raw = raw;
+            this.baked = baked;
+            this.totalWeight = totalWeight;
+            this.bakedWeight = bakedWeight;
+        }
+    }
+
+    /**
+     * Az EDT-n meghívott visszahívás; egy kérésre pontosan az egyik fut le, vagy
+     * egyik sem, ha a kérést egy újabb felülírta
+     */
+    interface Callback {
+        void completed(Result result);
+
+        void failed(String message);
+    }
+
+    private final ScheduledExecutorService executor;
+    // Csak a számító szálon használjuk
+    private final NutritionEngine engine;
+    private final long debounceMillis;
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledFuture<?> pending;
+
+    /**
+     * @param debounceMillis a késleltetett kérések várakozási ideje
+     */
+    CalculationPipeline(NutritionDatabase database, long debounceMillis) {
+        this.engine = new NutritionEngine(database, new NutritionResultCache(database, RESULT_CACHE_SIZE));
+        this.debounceMillis = debounceMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "Tápérték számítás");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Számítás kérése a recept pillanatnyi állapotáról (a receptet lemásoljuk)
+     *
+     * @param bakedWeight sütés utáni súly; 0, ha nincs sütési korrekció
+     * @param debounce    igaz esetén a kérés a késleltetés után indul (élő frissítés),
+     *                    egyébként azonnal (pl. a számítás gomb)
+     */
+    void submit(Recipe recipe, double bakedWeight, boolean debounce, Callback callback) {
+        Recipe snapshot = new Recipe(recipe.getName());
+        for (Map.Entry<String, Double> entry : recipe.ingredientsView().entrySet()) {
+            snapshot.addIngredient(entry.getKey(), entry.getValue());
+        }
+
+        long request = generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = executor.schedule(() -> run(request, snapshot, bakedWeight, callback),
+                debounce ? debounceMillis : 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A függő és a futó kérések eredményének eldobása
+     */
+    void cancel() {
+        generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private void run(long request, Recipe recipe, double bakedWeight, Callback callback) {
+        if (request != generation.get()) {
+            return; // közben újabb kérés érkezett
+        }
+        Result result = null;
+        String failure = null;
+        try {
+            NutritionInfo raw = new NutritionInfo();
+            NutritionInfo baked = bakedWeight > 0 ? new NutritionInfo() : null;
+            double totalWeight = engine.calculateTotalNutrition(recipe, bakedWeight, raw, baked);
+            result = new Result(raw, baked, totalWeight, bakedWeight);
+        } catch (IllegalArgumentException e) {
+            failure = e.getMessage();
+        } catch (RuntimeException e) {
+            // Váratlan hiba: az ütemező elnyelné, és a felület sosem kapna választ
+            failure = "Hiba történt a számítás során: "
+                    + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+        if (request != generation.get()) {
+            return;
+        }
+
+        Result completed = result;
+        String message = failure;
+        SwingUtilities.invokeLater(() -> {
+            // Az átadás alatt érkezett kérés is felülírja az eredményt
+            if (request != generation.get()) {
+                return;
+            }
+            if (completed != null) {
+                callback.completed(completed);
+            } else {
+                callback.failed(message);
+            }
+        });
+    }
+}
@@ -0,0 +1,519 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Oszlopos (structure-of-arrays) nézet az adatbázis összetevőire elemző lekérdezésekhez.
+ *
+ * Tápanyagonként egy double[] oszlop, az összetevők a sorok; egy szűrés így csak az
+ * érintett oszlopokat olvassa végig sorfolytonosan, NutritionInfo objektumok
+ * betöltése nélkül. A szűrés kiválasztási vektorral (sor indexek tömbje) dolgozik:
+ * az első feltétel a teljes oszlopot, a további feltételek már csak a megmaradt
+ * sorokat vizsgálják.
+ *
+ * Az adatbázis változásait figyelve naprakész marad; törléskor az utolsó sor kerül
+ * a törölt helyére, így az oszlopok mindig hézagmentesek. Szálbiztos (olvasó-író zár).
+ *
+ * A gyakran szűrt tápanyagokra rendezett másodlagos indexek (NutrientIndex) épülnek.
+ * A query() tervezője a legszelektívebb indexelt feltételt választja; ha egyik sem
+ * szűkít eléggé, de a rendezés indexelt tápanyag szerint megy kis limittel, az index
+ * sorrendjében halad; egyébként teljes oszlop bejárás történik.
+ */
+class ColumnarNutritionStore implements NutritionDatabase.Listener {
+    private static final int COLUMNS = NutritionInfo.NUTRIENT_COUNT;
+
+    // Alapértelmezetten indexelt (leggyakrabban szűrt) tápanyagok
+    static final String[] DEFAULT_INDEXED = {
+            "energyKcal", "fat", "saturatedFat", "carbs", "sugar", "fiber", "protein", "salt"
+    };
+
+    // Index tartomány csak akkor, ha a találatok aránya legfeljebb ennyi (különben a
+    // szórt elérés lassabb a sorfolytonos bejárásnál)
+    static final double MAX_INDEX_SELECTIVITY = 0.2;
+    // Index sorrendű bejárás legfeljebb ekkora limitig
+    static final int MAX_ORDERED_LIMIT = 1000;
+
+    /**
+     * A lekérdezés végrehajtási módja
+     */
+    enum Access { SCAN, INDEX_RANGE, INDEX_ORDER }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rows = new HashMap<>();
+    private String[] names = new String[1024];
+    private final double[][] columns = new double[COLUMNS][];
+    private int size;
+    // Minden módosítás növeli; az indexek ehhez képest avulnak el
+    private long version;
+    // tápanyag -> index (null, ha nincs indexelve)
+    private final NutrientIndex[] indexes = new NutrientIndex[COLUMNS];
+
+    /**
+     * Az oszlopok felépítése az alapértelmezett indexekkel
+     */
+    ColumnarNutritionStore(NutritionDatabase database) {
+        this(database, DEFAULT_INDEXED);
+    }
+
+    /**
+     * Az oszlopok felépítése az adatbázis tartalmából, és feliratkozás a változásaira
+     *
+     * @param indexed a rendezett indexszel ellátott tápanyagok
+     * @throws IllegalArgumentException ismeretlen tápanyag esetén
+     */
+    ColumnarNutritionStore(NutritionDatabase database, String... indexed) {
+        for (String nutrient : indexed) {
+            int index = NutritionInfo.indexOf(nutrient);
+            if (index < 0) {
+                throw new IllegalArgumentException("Ismeretlen tápanyag: " + nutrient);
+            }
+            indexes[index] = new NutrientIndex(index);
+        }
+        for (int n = 0; n < COLUMNS; n++) {
+            columns[n] = new double[names.length];
+        }
+        database.addListener(this, this::put);
+    }
+
+    @Override
+    public void ingredientChanged(String name, NutritionInfo info) {
+        lock.writeLock().lock();
+        try {
+            put(name, info);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void ingredientRemoved(String name) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rows.remove(name);
+            if (row == null) {
+                return;
+            }
+            // Az utolsó sor átmozgatása a törölt helyére
+            int last = --size;
+            if (row != last) {
+                names[row] = names[last];
+                for (int n = 0; n < COLUMNS; n++) {
+                    columns[n][row] = columns[n][last];
+                }
+                rows.put(names[row], row);
+            }
+            names[last] = null;
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Az összes feltételnek megfelelő összetevők nevei (sorrendjük nem meghatározott)
+     */
+    List<String> filter(RangePredicate... predicates) {
+        lock.readLock().lock();
+        try {
+            int[] selection = new int[size];
+            int count = select(predicates, selection);
+            List<String> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(names[selection[i]]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Az összes feltételnek megfelelő összetevők száma
+     */
+    int count(RangePredicate... predicates) {
+        lock.readLock().lock();
+        try {
+            return select(predicates, new int[size]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A feltételeknek megfelelő összetevők közül a k legnagyobb (descending) vagy legkisebb
+     * nutrient értékű, sorrendben; egyenlő értékeknél név szerint
+     *
+     * @throws IllegalArgumentException ismeretlen tápanyag vagy negatív k esetén
+     */
+    List<String> topK(String nutrient, int k, boolean descending, RangePredicate... predicates) {
+        int index = NutritionInfo.indexOf(nutrient);
+        if (index < 0) {
+            throw new IllegalArgumentException("Ismeretlen tápanyag: " + nutrient);
+        }
+        if (k < 0) {
+            throw new IllegalArgumentException("A találatok száma nem lehet negatív: " + k);
+        }
+        lock.readLock().lock();
+        try {
+            int[] selection = new int[size];
+            int count = select(predicates, selection);
+            int[] top = top(columns[index], selection, count, k, descending);
+            List<String> result = new ArrayList<>(top.length);
+            for (int row : top) {
+                result.add(names[row]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lekérdezés végrehajtása a legjobb elérési móddal. Rendezés nélkül a találatok
+     * sorrendje nem meghatározott; rendezésnél az egyenlő értékűek név szerint követik egymást.
+     */
+    List<String> query(NutrientQuery query) {
+        lock.readLock().lock();
+        try {
+            Plan plan = plan(query);
+            int[] selection;
+            int count;
+            switch (plan.access) {
+                case INDEX_ORDER:
+                    return ordered(query, plan.index);
+                case INDEX_RANGE:
+                    selection = new int[plan.to - plan.from];
+                    for (int i = plan.from; i < plan.to; i++) {
+                        selection[i - plan.from] = plan.index.rowAt(i);
+                    }
+                    count = narrow(query.predicates, plan.driver, selection, selection.length);
+                    break;
+                default:
+                    selection = new int[size];
+                    count = select(query.predicates.toArray(new RangePredicate[0]), selection);
+                    break;
+            }
+
+            int[] result;
+            if (query.orderBy >= 0) {
+                result = top(columns[query.orderBy], selection, count, query.limit, query.descending);
+            } else {
+                result = Arrays.copyOf(selection, Math.min(count, query.limit));
+            }
+            List<String> names = new ArrayList<>(result.length);
+            for (int row : result) {
+                names.add(this.names[row]);
+            }
+            return names;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A lekérdezés végrehajtási terve olvasható formában (pl. "INDEX_RANGE sugar (1234 sor)")
+     */
+    String explain(NutrientQuery query) {
+        lock.readLock().lock();
+        try {
+            Plan plan = plan(query);
+            switch (plan.access) {
+                case INDEX_RANGE:
+                    return plan.access + " " + plan.driver + " (" + (plan.to - plan.from) + " / " + size + " sor)";
+                case INDEX_ORDER:
+                    return plan.access + " " + NutritionInfo.getNutrientName(plan.index.nutrient)
+                            + (query.descending ? " DESC" : " ASC");
+                default:
+                    return plan.access + " (" + size + " sor)";
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Egy összetevő egy tápanyag értéke; NaN, ha nincs a tárban
+     */
+    double getValue(String name, String nutrient) {
+        int index = NutritionInfo.indexOf(nutrient);
+        if (index < 0) {
+            throw new IllegalArgumentException("Ismeretlen tápanyag: " + nutrient);
+        }
+        lock.readLock().lock();
+        try {
+            Integer row = rows.get(name);
+            return row != null ? columns[index][row] : Double.NaN;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Csak zár alatt hívható ---
+
+    private static final class Plan {
+        Access access = Access.SCAN;
+        NutrientIndex index;
+        RangePredicate driver;
+        int from;
+        int to;
+    }
+
+    /**
+     * Elérési mód választása: a legkevesebb találatot adó indexelt feltétel (pontos
+     * darabszám két bináris kereséssel), ha elég szelektív; különben index sorrendű
+     * bejárás (indexelt rendezés, kis limit) vagy teljes bejárás
+     */
+    private Plan plan(NutrientQuery query) {
+        Plan plan = new Plan();
+        int best = Integer.MAX_VALUE;
+        for (RangePredicate predicate : query.predicates) {
+            NutrientIndex index = current(predicate.nutrient);
+            if (index == null) {
+                continue;
+            }
+            int count = index.count(predicate);
+            if (count < best) {
+                best = count;
+                plan.index = index;
+                plan.driver = predicate;
+                plan.from = index.from(predicate);
+                plan.to = Math.max(plan.from, index.to(predicate));
+            }
+        }
+        if (plan.index != null && best <= size * MAX_INDEX_SELECTIVITY) {
+            plan.access = Access.INDEX_RANGE;
+            return plan;
+        }
+
+        if (query.orderBy >= 0 && query.limit <= MAX_ORDERED_LIMIT) {
+            NutrientIndex index = current(query.orderBy);
+            if (index != null) {
+                plan.access = Access.INDEX_ORDER;
+                plan.index = index;
+                plan.driver = null;
+                return plan;
+            }
+        }
+        plan.access = Access.SCAN;
+        plan.index = null;
+        plan.driver = null;
+        return plan;
+    }
+
+    /**
+     * A tápanyag naprakész indexe (szükség esetén újraépítve); null, ha nincs indexelve
+     */
+    private NutrientIndex current(int nutrient) {
+        NutrientIndex index = indexes[nutrient];
+        if (index != null) {
+            index.ensureCurrent(columns[nutrient], names, size, version);
+        }
+        return index;
+    }
+
+    /**
+     * Bejárás a rendezési index sorrendjében, a limit eléréséig. Csökkenő sorrendnél az
+     * egyenlő értékek csoportján belül előre haladunk, hogy a név szerinti sorrend megmaradjon.
+     */
+    private List<String> ordered(NutrientQuery query, NutrientIndex index) {
+        List<String> result = new ArrayList<>(Math.min(query.limit, 64));
+        if (query.limit == 0) {
+            return result;
+        }
+        if (!query.descending) {
+            for (int i = 0; i < index.size(); i++) {
+                if (matches(query.predicates, index.rowAt(i)) && add(result, index.rowAt(i), query.limit)) {
+                    break;
+                }
+            }
+            return result;
+        }
+        int end = index.size();
+        while (end > 0) {
+            int start = end - 1;
+            double value = index.valueAt(start);
+            while (start > 0 && Double.compare(index.valueAt(start - 1), value) == 0) {
+                start--;
+            }
+            for (int i = start; i < end; i++) {
+                if (matches(query.predicates, index.rowAt(i)) && add(result, index.rowAt(i), query.limit)) {
+                    return result;
+                }
+            }
+            end = start;
+        }
+        return result;
+    }
+
+    /**
+     * Hozzáadás; igaz, ha elértük a limitet
+     */
+    private boolean add(List<String> result, int row, int limit) {
+        result.add(names[row]);
+        return result.size() >= limit;
+    }
+
+    private boolean matches(List<RangePredicate> predicates, int row) {
+        for (RangePredicate predicate : predicates) {
+            if (!predicate.test(columns[predicate.nutrient][row])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void put(String name, NutritionInfo info) {
+        Integer row = rows.get(name);
+        if (row == null) {
+            if (size == names.length) {
+                int capacity = names.length * 2;
+                names = Arrays.copyOf(names, capacity);
+                for (int n = 0; n < COLUMNS; n++) {
+                    columns[n] = Arrays.copyOf(columns[n], capacity);
+                }
+            }
+            row = size++;
+            names[row] = name;
+            rows.put(name, row);
+        }
+        for (int n = 0; n < COLUMNS; n++) {
+            columns[n][row] = info.getValue(n);
+        }
+        version++;
+    }
+
+    /**
+     * A feltételeknek megfelelő sorok a selection tömb elejére; visszatérési érték a számuk
+     */
+    private int select(RangePredicate[] predicates, int[] selection) {
+        if (predicates.length == 0) {
+            for (int row = 0; row < size; row++) {
+                selection[row] = row;
+            }
+            return size;
+        }
+
+        // Első feltétel: a teljes oszlop bejárása
+        RangePredicate first = predicates[0];
+        double[] column = columns[first.nutrient];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            // Elágazás nélküli hozzáírás: a sor mindig beíródik, a számláló csak találatnál lép
+            selection[count] = row;
+            count += first.test(column[row]) ? 1 : 0;
+        }
+
+        // További feltételek: csak a megmaradt sorok szűkítése
+        return narrow(Arrays.asList(predicates), first, selection, count);
+    }
+
+    /**
+     * A kiválasztott sorok szűkítése helyben a skip kivételével minden feltétellel;
+     * visszatérési érték a megmaradt sorok száma
+     */
+    private int narrow(List<RangePredicate> predicates, RangePredicate skip, int[] selection, int count) {
+        for (RangePredicate predicate : predicates) {
+            if (predicate == skip || count == 0) {
+                continue;
+            }
+            double[] column = columns[predicate.nutrient];
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = selection[i];
+                selection[kept] = row;
+                kept += predicate.test(column[row]) ? 1 : 0;
+            }
+            count = kept;
+        }
+        return count;
+    }
+
+    /**
+     * A kiválasztott sorok közül a k legjobb (korlátos kupaccal, O(n log k)), rendezve
+     */
+    private int[] top(double[] column, int[] selection, int count, int k, boolean descending) {
+        k = Math.min(k, count);
+        if (k == 0) {
+            return new int[0];
+        }
+        // A kupac gyökere a jelenleg leggyengébb a legjobb k közül
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int i = 0; i < count; i++) {
+            int row = selection[i];
+            if (heapSize < k) {
+                heap[heapSize] = row;
+                siftUp(heap, heapSize++, column, descending);
+            } else if (better(row, heap[0], column, descending)) {
+                heap[0] = row;
+                siftDown(heap, heapSize, column, descending);
+            }
+        }
+
+        // Kiürítés: a leggyengébbtől a legjobbig, hátulról töltve
+        int[] result = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, column, descending);
+        }
+        return result;
+    }
+
+    private boolean better(int a, int b, double[] column, boolean descending) {
+        int c = Double.compare(column[a], column[b]);
+        if (c == 0) {
+            return names[a].compareTo(names[b]) < 0;
+        }
+        return descending ? c > 0 : c < 0;
+    }
+
+    private void siftUp(int[] heap, int index, double[] column, boolean descending) {
+        int row = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(heap[parent], row, column, descending)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = row;
+    }
+
+    private void siftDown(int[] heap, int size, double[] column, boolean descending) {
+        if (size == 0) {
+            return;
+        }
+        int row = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && better(heap[child], heap[child + 1], column, descending)) {
+                child++;
+            }
+            if (!better(row, heap[child], column, descending)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = row;
+    }
+}
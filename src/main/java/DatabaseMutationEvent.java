@@ -0,0 +1,35 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR esemény a NutritionDatabase módosításairól. Az időtartam az írási zárra
+ * várakozást is tartalmazza.
+ */
+@Name("nutrition.DatabaseMutation")
+@Label("Database Mutation")
+@Category({"Nutrition Calculator", "Database"})
+@Description("Összetevő hozzáadása, összetett összetevő definiálása vagy törlés")
+class DatabaseMutationEvent extends Event {
+    static final String ADD = "add";
+    static final String DEFINE_COMPOSITE = "defineComposite";
+    static final String REMOVE = "remove";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Ingredient")
+    String ingredient;
+
+    @Label("Changed Ingredients")
+    @Description("A módosítás miatt megváltozott összetevők száma (az újraszámolt összetett összetevőkkel együtt)")
+    long changedIngredients;
+
+    @Label("Database Version")
+    long version;
+
+    @Label("Failure")
+    String failure;
+}
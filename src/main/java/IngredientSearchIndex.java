@@ -0,0 +1,429 @@
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Keresőindex az összetevők neveihez (gépelés közbeni ajánláshoz).
+ *
+ * A neveket ékezet nélküli, kisbetűs szavakra bontjuk. A szavak rendezett fában
+ * vannak (előtag keresés), az elgépelésekhez a szavak hármasaiból (trigram) álló
+ * index ad jelölteket, amelyeket korlátos szerkesztési távolsággal ellenőrzünk.
+ * Az index az adatbázis változásait figyelve naprakész marad.
+ */
+class IngredientSearchIndex implements NutritionDatabase.Listener {
+    // Egy keresőszóhoz legfeljebb ennyi jelöltet vizsgálunk, így egy billentyűleütés ideje korlátos
+    private static final int MAX_CANDIDATES = 5_000;
+    private static final int MIN_FUZZY_LENGTH = 3;
+    private static final int SHORT_WORD_LENGTH = 4;
+
+    // Pontszámok (kisebb a jobb)
+    private static final int EXACT_WORD = 0;
+    private static final int WORD_PREFIX = 1;
+    private static final int FUZZY_WORD = 3;
+    private static final int NAME_PREFIX_BONUS = -1;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<String> normalizedNames = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<Integer> freeIds = new ArrayList<>();
+
+    // szó -> a szót tartalmazó nevek
+    private final TreeMap<String, Postings> words = new TreeMap<>();
+    // trigram -> a trigramot tartalmazó szavak
+    private final Map<String, List<String>> trigrams = new HashMap<>();
+
+    /**
+     * Az index felépítése az adatbázis tartalmából, és feliratkozás a változásaira
+     */
+    IngredientSearchIndex(NutritionDatabase database) {
+        database.addListener(this, this::add);
+    }
+
+    @Override
+    public synchronized void ingredientChanged(String name, NutritionInfo info) {
+        add(name);
+    }
+
+    @Override
+    public synchronized void ingredientRemoved(String name) {
+        Integer id = ids.remove(name);
+        if (id == null) {
+            return;
+        }
+        for (String word : words(normalizedNames.get(id))) {
+            Postings postings = words.get(word);
+            if (postings != null && postings.remove(id) && postings.size == 0) {
+                words.remove(word);
+                if (!isFuzzyIndexed(word)) {
+                    continue;
+                }
+                for (String trigram : trigrams(word)) {
+                    List<String> list = trigrams.get(trigram);
+                    if (list != null) {
+                        list.remove(word);
+                        if (list.isEmpty()) {
+                            trigrams.remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+        names.set(id, null);
+        normalizedNames.set(id, null);
+        freeIds.add(id);
+    }
+
+    synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * A lekérdezésre legjobban illeszkedő legfeljebb limit darab név, rangsorolva.
+     * Minden keresőszónak illeszkednie kell (pontosan, előtagként vagy kis elgépeléssel).
+     */
+    synchronized List<String> search(String query, int limit) {
+        String normalizedQuery = normalize(query);
+        List<String> queryWords = words(normalizedQuery);
+        if (queryWords.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        // A legszelektívebb keresőszó jelöltjeiből indulunk ki, a többit név szinten ellenőrizzük
+        Map<Integer, Integer> scores = null;
+        String selective = null;
+        for (String queryWord : queryWords) {
+            Map<Integer, Integer> wordScores = match(queryWord);
+            if (scores == null || wordScores.size() < scores.size()) {
+                scores = wordScores;
+                selective = queryWord;
+            }
+        }
+        if (queryWords.size() > 1) {
+            Map<Integer, Integer> combined = new HashMap<>();
+            for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+                int score = entry.getValue();
+                List<String> nameWords = words(normalizedNames.get(entry.getKey()));
+                for (String queryWord : queryWords) {
+                    if (queryWord.equals(selective)) {
+                        continue;
+                    }
+                    int wordScore = score(queryWord, nameWords);
+                    if (wordScore < 0) {
+                        score = -1;
+                        break;
+                    }
+                    score += wordScore;
+                }
+                // Csak azok a nevek maradnak, amelyekre minden keresőszó illeszkedik
+                if (score >= 0) {
+                    combined.put(entry.getKey(), score);
+                }
+            }
+            scores = combined;
+        }
+        if (scores.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Rangsor: pontszám, majd rövidebb név, majd ábécérend; a legrosszabb a kupac tetején
+        Comparator<int[]> ranking = Comparator.<int[]>comparingInt(match -> match[1])
+                .thenComparingInt(match -> normalizedNames.get(match[0]).length())
+                .thenComparing(match -> names.get(match[0]));
+        PriorityQueue<int[]> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+        for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+            int id = entry.getKey();
+            int score = entry.getValue();
+            if (normalizedNames.get(id).startsWith(normalizedQuery)) {
+                score += NAME_PREFIX_BONUS;
+            }
+            best.add(new int[]{id, score});
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        int[][] ranked = best.toArray(new int[0][]);
+        Arrays.sort(ranked, ranking);
+        List<String> results = new ArrayList<>(ranked.length);
+        for (int[] match : ranked) {
+            results.add(names.get(match[0]));
+        }
+        return results;
+    }
+
+    /**
+     * Egy keresőszóra illeszkedő nevek és a legjobb pontszámuk
+     */
+    private Map<Integer, Integer> match(String queryWord) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        int candidates = 0;
+
+        // Előtag (és pontos) egyezések a rendezett szófából
+        NavigableMap<String, Postings> prefixed = words.subMap(queryWord, true,
+                queryWord + Character.MAX_VALUE, false);
+        for (Map.Entry<String, Postings> entry : prefixed.entrySet()) {
+            int score = entry.getKey().length() == queryWord.length() ? EXACT_WORD : WORD_PREFIX;
+            candidates += addAll(scores, entry.getValue(), score, MAX_CANDIDATES - candidates);
+            if (candidates >= MAX_CANDIDATES) {
+                return scores;
+            }
+        }
+
+        // Elgépelések: a trigram index jelöltjei, korlátos szerkesztési távolsággal ellenőrizve
+        if (queryWord.length() < MIN_FUZZY_LENGTH || !isFuzzyIndexed(queryWord)) {
+            return scores;
+        }
+        int maxDistance = maxDistance(queryWord);
+        Map<String, Integer> shared = new HashMap<>();
+        int minShared;
+        if (queryWord.length() <= SHORT_WORD_LENGTH) {
+            // Rövid szavaknál egy elgépelés az összes trigramot elronthatja; az azonos
+            // kezdőbetűs szavakat vizsgáljuk, de legfeljebb MAX_CANDIDATES darabot
+            String first = queryWord.substring(0, 1);
+            int scanned = 0;
+            for (String word : words.subMap(first, true, first + Character.MAX_VALUE, false).keySet()) {
+                if (++scanned > MAX_CANDIDATES) {
+                    break;
+                }
+                if (word.length() <= queryWord.length() + maxDistance) {
+                    shared.put(word, 1);
+                }
+            }
+            minShared = 1;
+        } else {
+            List<String> queryTrigrams = trigrams(queryWord);
+            // Egy szerkesztés legfeljebb három trigramot ront el
+            minShared = Math.max(1, queryTrigrams.size() - 3 * maxDistance);
+            for (String trigram : queryTrigrams) {
+                List<String> list = trigrams.get(trigram);
+                if (list != null) {
+                    for (String word : list) {
+                        shared.merge(word, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            String word = entry.getKey();
+            if (entry.getValue() < minShared || word.startsWith(queryWord) || !isFuzzyIndexed(word)
+                    || Math.abs(word.length() - queryWord.length()) > maxDistance) {
+                continue;
+            }
+            int distance = distance(queryWord, word, maxDistance);
+            if (distance <= maxDistance) {
+                candidates += addAll(scores, words.get(word), FUZZY_WORD + distance,
+                        MAX_CANDIDATES - candidates);
+                if (candidates >= MAX_CANDIDATES) {
+                    break;
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static int addAll(Map<Integer, Integer> scores, Postings postings, int score, int remaining) {
+        int count = Math.min(postings.size, remaining);
+        for (int i = 0; i < count; i++) {
+            scores.merge(postings.ids[i], score, Math::min);
+        }
+        return count;
+    }
+
+    /**
+     * Egy keresőszó legjobb pontszáma egy név szavai között; -1, ha egyikre sem illeszkedik
+     */
+    private static int score(String queryWord, List<String> nameWords) {
+        int best = -1;
+        int maxDistance = maxDistance(queryWord);
+        for (String word : nameWords) {
+            int score;
+            if (word.startsWith(queryWord)) {
+                score = word.length() == queryWord.length() ? EXACT_WORD : WORD_PREFIX;
+            } else if (queryWord.length() >= MIN_FUZZY_LENGTH && isFuzzyIndexed(queryWord) && isFuzzyIndexed(word)
+                    && Math.abs(word.length() - queryWord.length()) <= maxDistance) {
+                int distance = distance(queryWord, word, maxDistance);
+                score = distance <= maxDistance ? FUZZY_WORD + distance : -1;
+            } else {
+                score = -1;
+            }
+            if (score >= 0 && (best < 0 || score < best)) {
+                best = score;
+            }
+        }
+        return best;
+    }
+
+    private static int maxDistance(String queryWord) {
+        return queryWord.length() <= SHORT_WORD_LENGTH ? 1 : 2;
+    }
+
+    private void add(String name) {
+        if (ids.containsKey(name)) {
+            return;
+        }
+        String normalized = normalize(name);
+        int id;
+        if (freeIds.isEmpty()) {
+            id = names.size();
+            names.add(name);
+            normalizedNames.add(normalized);
+        } else {
+            id = freeIds.remove(freeIds.size() - 1);
+            names.set(id, name);
+            normalizedNames.set(id, normalized);
+        }
+        ids.put(name, id);
+
+        for (String word : words(normalized)) {
+            Postings postings = words.get(word);
+            if (postings == null) {
+                postings = new Postings();
+                words.put(word, postings);
+                if (isFuzzyIndexed(word)) {
+                    for (String trigram : trigrams(word)) {
+                        trigrams.computeIfAbsent(trigram, key -> new ArrayList<>(2)).add(word);
+                    }
+                }
+            }
+            postings.add(id);
+        }
+    }
+
+    /**
+     * Ékezetek elhagyása, kisbetűsítés, a nem betű/szám karakterek szóközzé alakítása
+     */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        int length = normalized.length();
+        if (length > 0 && normalized.charAt(length - 1) == ' ') {
+            normalized.setLength(length - 1);
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Számot tartalmazó szavakra (kódok, mennyiségek) nem keresünk elgépelést
+     */
+    private static boolean isFuzzyIndexed(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isDigit(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> words(String normalized) {
+        List<String> result = new ArrayList<>(4);
+        int start = 0;
+        while (start < normalized.length()) {
+            int end = normalized.indexOf(' ', start);
+            if (end < 0) {
+                end = normalized.length();
+            }
+            String word = normalized.substring(start, end);
+            if (!result.contains(word)) {
+                result.add(word);
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /**
+     * A szó hármasai, a szó elejét és végét jelölő határoló karakterrel
+     */
+    private static List<String> trigrams(String word) {
+        String padded = " " + word + " ";
+        List<String> result = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            String trigram = padded.substring(i, i + 3);
+            if (!result.contains(trigram)) {
+                result.add(trigram);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Szerkesztési távolság (beszúrás, törlés, csere, szomszédos betűk cseréje);
+     * ha meghaladja a korlátot, a korlátnál nagyobb értéket ad vissza
+     */
+    static int distance(String a, String b, int max) {
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Növekvő int lista a nevek azonosítóihoz
+     */
+    private static final class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zármentes késleltetés hisztogram nanoszekundumos értékekhez.
+ *
+ * Log-lineáris vödrök: 16 ns alatt nanoszekundumonként, felette kettő hatványonként
+ * 8 alvödör, így egy percentilis relatív hibája legfeljebb ~6%. A számlálók szálak
+ * szerint csíkozva vannak (minden csík külön vödörtömb), hogy a párhuzamos rögzítések
+ * ne ugyanazt a gyorsítótár sort írják. Rögzítéskor nincs zár és foglalás; a lekérdezés
+ * összegzi a csíkokat, ezért párhuzamos rögzítés mellett közelítő pillanatképet ad.
+ */
+class LatencyHistogram {
+    private static final int LINEAR = 16;
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int BUCKETS = LINEAR + (63 - 4) * SUB_BUCKETS;
+
+    private static final int STRIPES = stripes();
+    private static final int STRIPE_MASK = STRIPES - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Egy mérés rögzítése (negatív érték nullának számít)
+     */
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int stripe = (int) Thread.currentThread().getId() & STRIPE_MASK;
+        counts.getAndIncrement(stripe * BUCKETS + bucket(nanos));
+        count.increment();
+        sum.add(nanos);
+        // Csak akkor írunk, ha tényleg új maximum (ritka)
+        if (nanos > max.get()) {
+            max.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * A q (0..1) percentilishez tartozó becsült érték nanoszekundumban; üres hisztogramnál 0
+     */
+    long getPercentile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("A percentilis 0 és 1 között lehet: " + q);
+        }
+        long[] merged = new long[BUCKETS];
+        long total = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            int offset = stripe * BUCKETS;
+            for (int b = 0; b < BUCKETS; b++) {
+                long c = counts.get(offset + b);
+                merged[b] += c;
+                total += c;
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += merged[b];
+            if (seen >= rank) {
+                // A vödör közepe, de a mért maximumnál nem nagyobb
+                return Math.min(lowerBound(b) + (upperBound(b) - lowerBound(b)) / 2, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Minden számláló nullázása (a közben rögzített mérések részben elveszhetnek)
+     */
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < LINEAR) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int mantissa = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - 4) * SUB_BUCKETS + mantissa;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR) / SUB_BUCKETS + 4;
+        int mantissa = (bucket - LINEAR) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + mantissa) << (exponent - SUB_BITS);
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR) / SUB_BUCKETS + 4;
+        return lowerBound(bucket) + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    private static int stripes() {
+        // A processzorszámnál nem kisebb kettő hatvány, legfeljebb 16
+        int processors = Math.min(Runtime.getRuntime().availableProcessors(), 16);
+        return Integer.highestOneBit(Math.max(1, processors * 2 - 1));
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Találat / hiány számlálók csíkozott (LongAdder) számlálókkal, időmérés nélkül,
+ * hogy a nanoszekundumos lekérdezéseket se lassítsák érdemben
+ */
+class LookupMetrics implements LookupMetricsMXBean {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    /**
+     * Több lekérdezés egyszerre rögzítése (kötegelt lekérdezésekhez)
+     */
+    void record(long hitCount, long missCount) {
+        if (hitCount > 0) {
+            hits.add(hitCount);
+        }
+        if (missCount > 0) {
+            misses.add(missCount);
+        }
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public void reset() {
+        hits.reset();
+        misses.reset();
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * Egy keresés jellegű művelet (pl. adatbázis lekérdezés) találati számlálóinak JMX nézete
+ */
+public interface LookupMetricsMXBean {
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * Találati arány 0 és 1 között; kérés nélkül 0
+     */
+    double getHitRatio();
+
+    void reset();
+}
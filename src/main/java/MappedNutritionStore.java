@@ -0,0 +1,405 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Memóriába leképezett (off-heap) tápérték adatbázis fájl.
+ *
+ * Felépítés (big-endian):
+ *   fejléc (64 bájt): magic "NDBF", verzió, tápanyagok száma, rekordok száma,
+ *                     index kapacitás, a szakaszok kezdő pozíciói,
+ *   rekordok:         rögzített lépésközű rekordok (név pozíció, név hossz, tápértékek),
+ *   nevek:            az összetevő nevek UTF-8 bájtjai egymás után,
+ *   index:            nyílt címzésű hash tábla (rekord sorszám + 1, 0 = üres).
+ *
+ * A lekérdezések közvetlenül a leképezésből olvasnak, így a Java heap mérete nem
+ * függ a katalógus méretétől; a rezidens memóriát az operációs rendszer lap
+ * gyorsítótára korlátozza. A megnyitott tár csak olvasható és szálbiztos.
+ */
+final class MappedNutritionStore implements Closeable {
+    static final int MAGIC = 0x4E444246; // "NDBF"
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_HEADER_SIZE = 16; // név pozíció (8) + név hossz (4) + tartalék (4)
+    private static final int STRIDE = RECORD_HEADER_SIZE + NutritionInfo.NUTRIENT_COUNT * 8;
+
+    // Egy leképezett szakasz legfeljebb 2GB lehet, ezért a rekordokat szegmensekre bontjuk
+    private static final int RECORDS_PER_SEGMENT = Integer.MAX_VALUE / STRIDE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] recordSegments;
+    private final MappedByteBuffer names;
+    private final MappedByteBuffer index;
+    private final int indexMask;
+    private final int size;
+
+    private MappedNutritionStore(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Ismeretlen adatbázis fájlformátum.");
+        }
+        int version = header.getShort(4) & 0xFFFF;
+        if (version != VERSION) {
+            throw new IOException("Nem támogatott adatbázis fájl verzió: " + version);
+        }
+        int nutrientCount = header.getShort(6) & 0xFFFF;
+        if (nutrientCount != NutritionInfo.NUTRIENT_COUNT) {
+            throw new IOException("Az adatbázis fájl tápanyag elrendezése nem egyezik: " + nutrientCount);
+        }
+        int recordCount = header.getInt(8);
+        int indexCapacity = header.getInt(12);
+        size = header.getInt(16);
+        long recordsOffset = header.getLong(24);
+        long namesOffset = header.getLong(32);
+        long namesLength = header.getLong(40);
+        long indexOffset = header.getLong(48);
+
+        int segmentCount = (recordCount + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT;
+        recordSegments = new MappedByteBuffer[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            int records = Math.min(RECORDS_PER_SEGMENT, recordCount - s * RECORDS_PER_SEGMENT);
+            recordSegments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    recordsOffset + (long) s * RECORDS_PER_SEGMENT * STRIDE, (long) records * STRIDE);
+        }
+        names = channel.map(FileChannel.MapMode.READ_ONLY, namesOffset, namesLength);
+        index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) indexCapacity * 4);
+        indexMask = indexCapacity - 1;
+    }
+
+    /**
+     * Adatbázis fájl megnyitása csak olvasásra
+     */
+    static MappedNutritionStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedNutritionStore(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Összetevők kiírása egy új adatbázis fájlba
+     */
+    static void write(Path file, Map<String, NutritionInfo> entries) throws IOException {
+        try (Builder builder = new Builder(file)) {
+            for (Map.Entry<String, NutritionInfo> entry : entries.entrySet()) {
+                builder.add(entry.getKey(), entry.getValue());
+            }
+            builder.finish();
+        }
+    }
+
+    /**
+     * Az élő (indexelt) összetevők száma
+     */
+    int size() {
+        return size;
+    }
+
+    boolean contains(String name) {
+        return find(name) >= 0;
+    }
+
+    /**
+     * Tápérték kiolvasása a leképezésből; null, ha az összetevő nem szerepel
+     */
+    NutritionInfo get(String name) {
+        int record = find(name);
+        if (record < 0) {
+            return null;
+        }
+        ByteBuffer segment = recordSegments[record / RECORDS_PER_SEGMENT];
+        int base = (record % RECORDS_PER_SEGMENT) * STRIDE + RECORD_HEADER_SIZE;
+        NutritionInfo info = new NutritionInfo();
+        for (int n = 0; n < NutritionInfo.NUTRIENT_COUNT; n++) {
+            info.setValue(n, segment.getDouble(base + n * 8));
+        }
+        return info;
+    }
+
+    /**
+     * Az összes élő összetevő nevének bejárása (index sorrendben)
+     */
+    void forEachName(Consumer<String> action) {
+        for (int slot = 0; slot <= indexMask; slot++) {
+            int entry = index.getInt(slot * 4);
+            if (entry != 0) {
+                action.accept(nameOf(entry - 1));
+            }
+        }
+    }
+
+    /**
+     * Az élő összetevők átmásolása egy új adatbázis fájlba, a kihagyott nevek kivételével
+     */
+    void copyTo(Builder builder, Set<String> excluded) throws IOException {
+        for (int slot = 0; slot <= indexMask; slot++) {
+            int entry = index.getInt(slot * 4);
+            if (entry != 0) {
+                String name = nameOf(entry - 1);
+                if (!excluded.contains(name)) {
+                    builder.add(name, get(name));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int find(String name) {
+        if (size == 0) {
+            return -1;
+        }
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int slot = hash(key, 0, key.length) & indexMask;
+        while (true) {
+            int entry = index.getInt(slot * 4);
+            if (entry == 0) {
+                return -1;
+            }
+            if (nameEquals(entry - 1, key)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & indexMask;
+        }
+    }
+
+    private boolean nameEquals(int record, byte[] key) {
+        ByteBuffer segment = recordSegments[record / RECORDS_PER_SEGMENT];
+        int base = (record % RECORDS_PER_SEGMENT) * STRIDE;
+        int length = segment.getInt(base + 8);
+        if (length != key.length) {
+            return false;
+        }
+        int offset = (int) segment.getLong(base);
+        for (int i = 0; i < length; i++) {
+            if (names.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String nameOf(int record) {
+        ByteBuffer segment = recordSegments[record / RECORDS_PER_SEGMENT];
+        int base = (record % RECORDS_PER_SEGMENT) * STRIDE;
+        int offset = (int) segment.getLong(base);
+        byte[] bytes = new byte[segment.getInt(base + 8)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = names.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * FNV-1a hash a név UTF-8 bájtjain
+     */
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            h ^= bytes[i] & 0xFF;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Adatbázis fájl folyamatos írása. A rekordok azonnal a célfájlba kerülnek,
+     * a heapen rekordonként csak a név pozíciója, hossza és hash értéke marad,
+     * így nagy katalógusok is bejárhatók korlátos memóriával. Azonos nevű
+     * összetevők közül a később hozzáadott érvényes. A fájl ideiglenes néven
+     * készül, és csak a sikeres befejezéskor kerül a végleges helyére, így egy
+     * éppen megnyitott adatbázis fájl is biztonságosan felülírható.
+     */
+    static final class Builder implements Closeable {
+        private final Path file;
+        private final Path dataFile;
+        private final Path namesFile;
+        private final FileChannel out;
+        private final FileChannel namesOut;
+        private final ByteBuffer records = ByteBuffer.allocate(STRIDE * 4096);
+        private final ByteBuffer nameBuffer = ByteBuffer.allocate(64 * 1024);
+
+        private long[] nameOffsets = new long[1024];
+        private int[] nameLengths = new int[1024];
+        private int[] hashes = new int[1024];
+        private int count;
+        private long namesLength;
+        private boolean finished;
+
+        Builder(Path file) throws IOException {
+            this.file = file;
+            Path directory = file.toAbsolutePath().getParent();
+            this.dataFile = Files.createTempFile(directory, "ndb", ".tmp");
+            this.namesFile = Files.createTempFile(directory, "names", ".tmp");
+            this.out = FileChannel.open(dataFile, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            this.namesOut = FileChannel.open(namesFile, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            out.position(HEADER_SIZE);
+        }
+
+        void add(String name, NutritionInfo info) throws IOException {
+            if (count == Integer.MAX_VALUE - 1) {
+                throw new IOException("Túl sok összetevő az adatbázis fájlhoz.");
+            }
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (count == hashes.length) {
+                int capacity = hashes.length * 2;
+                nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+                nameLengths = Arrays.copyOf(nameLengths, capacity);
+                hashes = Arrays.copyOf(hashes, capacity);
+            }
+            nameOffsets[count] = namesLength;
+            nameLengths[count] = bytes.length;
+            hashes[count] = hash(bytes, 0, bytes.length);
+
+            if (records.remaining() < STRIDE) {
+                flush(out, records);
+            }
+            records.putLong(namesLength);
+            records.putInt(bytes.length);
+            records.putInt(0);
+            for (int n = 0; n < NutritionInfo.NUTRIENT_COUNT; n++) {
+                records.putDouble(info.getValue(n));
+            }
+
+            if (nameBuffer.remaining() < bytes.length) {
+                flush(namesOut, nameBuffer);
+            }
+            if (bytes.length > nameBuffer.capacity()) {
+                writeFully(namesOut, ByteBuffer.wrap(bytes));
+            } else {
+                nameBuffer.put(bytes);
+            }
+
+            namesLength += bytes.length;
+            count++;
+        }
+
+        /**
+         * A nevek és a hash index hozzáfűzése, majd a fejléc kiírása
+         */
+        void finish() throws IOException {
+            flush(out, records);
+            flush(namesOut, nameBuffer);
+            if (namesLength > Integer.MAX_VALUE) {
+                throw new IOException("Az összetevő nevek túl nagyok az adatbázis fájlhoz.");
+            }
+            int capacity = Integer.highestOneBit(Math.max(16, count * 2 - 1)) << 1;
+            int mask = capacity - 1;
+            int[] table = new int[capacity];
+            int live = 0;
+
+            ByteBuffer nameBytes = namesOut.map(FileChannel.MapMode.READ_ONLY, 0, namesLength);
+            for (int record = 0; record < count; record++) {
+                int slot = hashes[record] & mask;
+                while (table[slot] != 0 && !sameName(nameBytes, table[slot] - 1, record)) {
+                    slot = (slot + 1) & mask;
+                }
+                if (table[slot] == 0) {
+                    live++;
+                }
+                table[slot] = record + 1;
+            }
+
+            long recordsOffset = HEADER_SIZE;
+            long namesOffset = recordsOffset + (long) count * STRIDE;
+            out.position(namesOffset);
+            long transferred = 0;
+            while (transferred < namesLength) {
+                transferred += namesOut.transferTo(transferred, namesLength - transferred, out);
+            }
+
+            long indexOffset = namesOffset + namesLength;
+            out.position(indexOffset);
+            ByteBuffer indexBuffer = ByteBuffer.allocate(64 * 1024);
+            for (int slot = 0; slot < capacity; slot++) {
+                if (!indexBuffer.hasRemaining()) {
+                    indexBuffer.flip();
+                    writeFully(out, indexBuffer);
+                    indexBuffer.clear();
+                }
+                indexBuffer.putInt(table[slot]);
+            }
+            indexBuffer.flip();
+            writeFully(out, indexBuffer);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC);
+            header.putShort((short) VERSION);
+            header.putShort((short) NutritionInfo.NUTRIENT_COUNT);
+            header.putInt(count);
+            header.putInt(capacity);
+            header.putInt(live);
+            header.putInt(0);
+            header.putLong(recordsOffset);
+            header.putLong(namesOffset);
+            header.putLong(namesLength);
+            header.putLong(indexOffset);
+            header.clear();
+            out.position(0);
+            writeFully(out, header);
+            out.force(false);
+            out.close();
+            Files.move(dataFile, file, StandardCopyOption.REPLACE_EXISTING);
+            finished = true;
+        }
+
+        private boolean sameName(ByteBuffer nameBytes, int a, int b) {
+            if (hashes[a] != hashes[b] || nameLengths[a] != nameLengths[b]) {
+                return false;
+            }
+            int offsetA = (int) nameOffsets[a];
+            int offsetB = (int) nameOffsets[b];
+            for (int i = 0; i < nameLengths[a]; i++) {
+                if (nameBytes.get(offsetA + i) != nameBytes.get(offsetB + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+                namesOut.close();
+            } finally {
+                Files.deleteIfExists(namesFile);
+                if (!finished) {
+                    Files.deleteIfExists(dataFile);
+                }
+            }
+        }
+
+        private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            writeFully(channel, buffer);
+            buffer.clear();
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Az alkalmazás futásidejű mérőszámai, JMX MBean-ként közzétéve
+ * ("NutritionCalculator" tartomány, pl. JConsole / VisualVM alatt).
+ *
+ * - RecipeCalculation: receptszámítások (NutritionEngine) késleltetése és száma
+ * - OpenFoodFactsSearch: OpenFoodFacts keresések késleltetése, hibái (a gyorsítótárból
+ *   kiszolgált kérések is, a találati arányuk
+ *   az OpenFoodFactsCache alatt látható)
+ * - DatabaseLookups: tápérték lekérdezések találatai és hiányai
+ */
+final class Metrics {
+    static final String DOMAIN = "NutritionCalculator";
+
+    static final OperationMetrics RECIPE_CALCULATION =
+            register("Operation", "RecipeCalculation", new OperationMetrics());
+    static final OperationMetrics OPEN_FOOD_FACTS_SEARCH =
+            register("Operation", "OpenFoodFactsSearch", new OperationMetrics());
+    static final LookupMetrics OPEN_FOOD_FACTS_CACHE =
+            register("Lookup", "OpenFoodFactsCache", new LookupMetrics());
+    static final LookupMetrics DATABASE_LOOKUPS =
+            register("Lookup", "DatabaseLookups", new LookupMetrics());
+
+    private Metrics() {
+    }
+
+    private static <T> T register(String type, String name, T mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (JMException | SecurityException e) {
+            // A mérés JMX nélkül is működik, csak nem látható kívülről
+            System.err.println("Nem sikerült a mérőszámok JMX regisztrációja (" + name + "): " + e.getMessage());
+        }
+        return mbean;
+    }
+}
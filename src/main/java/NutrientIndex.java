@@ -0,0 +1,144 @@
+/**
+ * Rendezett másodlagos index egy tápanyag oszlopára: a sorok érték (egyenlőség
+ * esetén név) szerint rendezve. Egy tartomány feltétel találatai két bináris
+ * kereséssel, összefüggő szeletként kaphatók meg, pontos darabszámmal.
+ *
+ * Lustán épül: az oszlopos tár minden módosítása elavulttá teszi, és csak a
+ * következő, ezt az indexet használó lekérdezés építi újra. Az újraépítést a
+ * tár olvasási zárja alatt, az indexen szinkronizálva végezzük.
+ */
+final class NutrientIndex {
+    final int nutrient;
+
+    private int[] rows = new int[0];
+    private double[] values = new double[0];
+    private int size;
+    private long builtVersion = -1;
+
+    NutrientIndex(int nutrient) {
+        this.nutrient = nutrient;
+    }
+
+    /**
+     * Újraépítés, ha a tár változata azóta változott
+     */
+    synchronized void ensureCurrent(double[] column, String[] names, int count, long version) {
+        if (builtVersion == version) {
+            return;
+        }
+        if (rows.length < count) {
+            rows = new int[count];
+            values = new double[count];
+        }
+        int[] scratch = new int[count];
+        for (int row = 0; row < count; row++) {
+            rows[row] = row;
+        }
+        sort(rows, scratch, 0, count, column, names);
+        for (int i = 0; i < count; i++) {
+            values[i] = column[rows[i]];
+        }
+        size = count;
+        builtVersion = version;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int rowAt(int position) {
+        return rows[position];
+    }
+
+    double valueAt(int position) {
+        return values[position];
+    }
+
+    /**
+     * A feltételnek megfelelő első pozíció
+     */
+    int from(RangePredicate predicate) {
+        return predicate.minInclusive ? firstNotLess(predicate.min) : firstGreater(predicate.min);
+    }
+
+    /**
+     * A feltételnek megfelelő utolsó utáni pozíció
+     */
+    int to(RangePredicate predicate) {
+        return predicate.maxInclusive ? firstGreater(predicate.max) : firstNotLess(predicate.max);
+    }
+
+    /**
+     * A feltételnek megfelelő sorok száma
+     */
+    int count(RangePredicate predicate) {
+        return Math.max(0, to(predicate) - from(predicate));
+    }
+
+    private int firstNotLess(double value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstGreater(double value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Stabil összefésülő rendezés sor indexeken, boxing nélkül
+     */
+    private static void sort(int[] a, int[] scratch, int from, int to, double[] column, String[] names) {
+        if (to - from <= 16) {
+            for (int i = from + 1; i < to; i++) {
+                int row = a[i];
+                int j = i - 1;
+                while (j >= from && compare(a[j], row, column, names) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = row;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sort(a, scratch, from, mid, column, names);
+        sort(a, scratch, mid, to, column, names);
+        if (compare(a[mid - 1], a[mid], column, names) <= 0) {
+            return;
+        }
+        System.arraycopy(a, from, scratch, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && compare(scratch[i], scratch[j], column, names) <= 0)) {
+                a[k] = scratch[i++];
+            } else {
+                a[k] = scratch[j++];
+            }
+        }
+    }
+
+    static int compare(int a, int b, double[] column, String[] names) {
+        int c = Double.compare(column[a], column[b]);
+        return c != 0 ? c : names[a].compareTo(names[b]);
+    }
+}
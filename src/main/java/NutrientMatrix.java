@@ -0,0 +1,93 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Összetevő × tápanyag mátrix egyetlen összefüggő double tömbben: soronként egy
+ * összetevő, soronként NutritionInfo.NUTRIENT_COUNT érték (sorfolytonos tárolás).
+ *
+ * Az adatbázis egy pillanatképe, a későbbi módosítások nem látszanak benne;
+ * létrehozás után nem változik, így szálak között szabadon megosztható.
+ * A tömeges kiértékelés (BulkNutritionEvaluator) ebből olvas.
+ */
+final class NutrientMatrix {
+    static final int COLUMNS = NutritionInfo.NUTRIENT_COUNT;
+
+    private final String[] names;
+    private final Map<String, Integer> rows;
+    // rowCount * COLUMNS érték, az i. összetevő az [i * COLUMNS, (i + 1) * COLUMNS) tartományban
+    final double[] values;
+
+    private NutrientMatrix(List<String> names, List<NutritionInfo> infos) {
+        this.names = names.toArray(new String[0]);
+        this.rows = new HashMap<>(names.size() * 2);
+        this.values = new double[names.size() * COLUMNS];
+        for (int row = 0; row < this.names.length; row++) {
+            rows.put(this.names[row], row);
+            NutritionInfo info = infos.get(row);
+            int base = row * COLUMNS;
+            for (int n = 0; n < COLUMNS; n++) {
+                values[base + n] = info.getValue(n);
+            }
+        }
+    }
+
+    /**
+     * Az adatbázis összes összetevőjének mátrixa. A bejárás alatti módosítások
+     * látszhatnak vagy nem.
+     */
+    static NutrientMatrix snapshot(NutritionDatabase database) {
+        // Belső teljes bejárás: nem számít adatbázis lekérdezésnek a mérésekben
+        List<String> names = new ArrayList<>();
+        List<NutritionInfo> infos = new ArrayList<>();
+        database.forEachNutritionInfo((name, info) -> {
+            names.add(name);
+            infos.add(info);
+        });
+        return new NutrientMatrix(names, infos);
+    }
+
+    /**
+     * A megadott összetevők mátrixa (a sorok sorrendje a names sorrendje, ismétlések nélkül)
+     *
+     * @throws IllegalArgumentException ha egy összetevő nem található az adatbázisban
+     */
+    static NutrientMatrix snapshot(NutritionDatabase database, Collection<String> names) {
+        // A receptek összetevőinek feloldása valódi lekérdezés, ez a mérésekbe is beszámít
+        String[] lookup = new LinkedHashSet<>(names).toArray(new String[0]);
+        NutritionInfo[] infos = new NutritionInfo[lookup.length];
+        database.getNutritionInfo(lookup, lookup.length, infos);
+
+        for (int i = 0; i < lookup.length; i++) {
+            if (infos[i] == null) {
+                throw new IllegalArgumentException(
+                        "Nem található tápérték információ a következő összetevőhöz: " + lookup[i]);
+            }
+        }
+        return new NutrientMatrix(Arrays.asList(lookup), Arrays.asList(infos));
+    }
+
+    int getRowCount() {
+        return names.length;
+    }
+
+    /**
+     * Az összetevő sorának indexe; -1, ha nincs a mátrixban
+     */
+    int indexOf(String name) {
+        Integer row = rows.get(name);
+        return row != null ? row : -1;
+    }
+
+    String getName(int row) {
+        return names[row];
+    }
+
+    double get(int row, int nutrient) {
+        return values[row * COLUMNS + nutrient];
+    }
+}
@@ -0,0 +1,537 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Legközelebbi szomszéd keresés a tápérték vektorok között (helyettesítő összetevők
+ * ajánlásához).
+ *
+ * A vektorok tápanyagonként normalizáltak (az átlaggal eltolva, a szórással osztva),
+ * majd a megadott tápanyag súlyokkal szorzottak, így egyik tápanyag sem nyomja el a
+ * többit csak a mértékegysége miatt. A keresés vantage-point fán (VP-fa) fut: minden
+ * belső csúcs egy kiválasztott pont körüli medián sugárral kettéosztja a többi pontot,
+ * és a háromszög-egyenlőtlenség alapján a keresés a reménytelen ágakat kihagyja.
+ * Mindhárom választható távolság metrika, így a vágás pontos (nem közelítő) eredményt ad.
+ *
+ * Az index az adatbázis változásakor elavulttá válik; a következő keresés háttérszálon
+ * indítja az újraépítést, és amíg az el nem készül, a keresések az utolsó kész
+ * (változtathatatlan) fát használják. Csak a legelső építést kell megvárni, illetve
+ * azt, ha a keresett összetevő még nincs benne a régi fában. Szálbiztos.
+ */
+class NutrientNeighbourIndex implements NutritionDatabase.Listener {
+    private static final int LEAF_SIZE = 8;
+    // Minden újraépítés saját démon szálon fut, így az index leállítást nem igényel
+    private static final Executor REBUILD_EXECUTOR = task -> {
+        Thread thread = new Thread(task, "Helyettesítő index építés");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    enum Metric { EUCLIDEAN, MANHATTAN, CHEBYSHEV }
+
+    /**
+     * Egy találat: az összetevő neve és a normalizált távolsága
+     */
+    static final class Match {
+        final String name;
+        final double distance;
+
+        Match(String name, double distance) {
+            this.name = name;
+            this.distance = distance;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        double getDistance() {
+            return distance;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + String.format("%.3f", distance) + ")";
+        }
+    }
+
+    private final NutritionDatabase database;
+    private final Metric metric;
+    private final double[] weights = new double[NutritionInfo.NUTRIENT_COUNT];
+
+    private volatile boolean dirty = true;
+    // Az utolsó kész fa; null, amíg az első építés el nem készül
+    private volatile Tree tree;
+    // A folyamatban lévő újraépítés; null, ha nincs ilyen (a this monitorral védve)
+    private CompletableFuture<Tree> rebuilding;
+
+    /**
+     * Euklideszi távolság, minden tápanyag azonos súllyal
+     */
+    NutrientNeighbourIndex(NutritionDatabase database) {
+        this(database, Metric.EUCLIDEAN, new HashMap<>());
+    }
+
+    /**
+     * @param weights tápanyag -> súly; a hiányzó tápanyagok súlya 1, a 0 súlyúak kimaradnak
+     * @throws IllegalArgumentException ismeretlen tápanyag vagy negatív súly esetén
+     */
+    NutrientNeighbourIndex(NutritionDatabase database, Metric metric, Map<String, Double> weights) {
+        this.database = database;
+        this.metric = metric;
+        Arrays.fill(this.weights, 1.0);
+        for (Map.Entry<String, Double> entry : weights.entrySet()) {
+            int index = NutritionInfo.indexOf(entry.getKey());
+            if (index < 0) {
+                throw new IllegalArgumentException("Ismeretlen tápanyag: " + entry.getKey());
+            }
+            if (!(entry.getValue() >= 0)) {
+                throw new IllegalArgumentException("A súly nem lehet negatív: " + entry.getKey());
+            }
+            this.weights[index] = entry.getValue();
+        }
+        database.addListener(this);
+    }
+
+    @Override
+    public void ingredientChanged(String name, NutritionInfo info) {
+        dirty = true;
+    }
+
+    @Override
+    public void ingredientRemoved(String name) {
+        dirty = true;
+    }
+
+    Metric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Az adott összetevőhöz legközelebbi k másik összetevő, növekvő távolság szerint
+     *
+     * @throws IllegalArgumentException ha az összetevő nem található
+     */
+    List<Match> nearest(String ingredient, int k) {
+        Tree current = tree();
+        Integer row = current.rows.get(ingredient);
+        // Lehet, hogy az összetevő a kész fa építése óta került be: megvárjuk a frissítést
+        CompletableFuture<Tree> pending;
+        while (row == null && (pending = rebuildIfDirty()) != null) {
+            current = pending.join();
+            row = current.rows.get(ingredient);
+        }
+        if (row == null) {
+            throw new IllegalArgumentException(
+                    "Nem található tápérték információ a következő összetevőhöz: " + ingredient);
+        }
+        float[] query = new float[current.dims];
+        System.arraycopy(current.vectors, row * current.dims, query, 0, current.dims);
+        return current.search(query, k, row);
+    }
+
+    /**
+     * A megadott tápértékhez (pl. egy cél összetételhez) legközelebbi k összetevő
+     */
+    List<Match> nearest(NutritionInfo target, int k) {
+        Tree current = tree();
+        return current.search(current.normalize(target), k, -1);
+    }
+
+    /**
+     * Az utolsó kész fa; ha az adatbázis azóta változott, a háttérben újraépítést indítunk,
+     * de nem várjuk meg (kivéve a legelső építést)
+     */
+    private Tree tree() {
+        Tree current = tree;
+        if (current == null) {
+            return rebuildIfDirty().join();
+        }
+        if (dirty) {
+            rebuildIfDirty();
+        }
+        return current;
+    }
+
+    /**
+     * A folyamatban lévő újraépítés, vagy egy most indított, ha a fa elavult; null, ha a fa
+     * naprakész. A monitort csak az indítás idejére tartjuk, az építés alatt nem.
+     */
+    private synchronized CompletableFuture<Tree> rebuildIfDirty() {
+        if (rebuilding == null && (dirty || tree == null)) {
+            // A jelzőt az olvasás előtt töröljük, így a közben érkező változás újabb építést vált ki
+            dirty = false;
+            rebuilding = CompletableFuture.supplyAsync(this::rebuild, REBUILD_EXECUTOR);
+        }
+        return rebuilding;
+    }
+
+    private Tree rebuild() {
+        try {
+            Tree built = build();
+            tree = built;
+            return built;
+        } catch (RuntimeException e) {
+            // Sikertelen építés: a következő keresés újra próbálkozik
+            dirty = true;
+            throw e;
+        } finally {
+            synchronized (this) {
+                rebuilding = null;
+            }
+        }
+    }
+
+    private Tree build() {
+        // Belső teljes bejárás: nem számít adatbázis lekérdezésnek a mérésekben
+        List<String> found = new ArrayList<>();
+        List<NutritionInfo> infos = new ArrayList<>();
+        database.forEachNutritionInfo((name, info) -> {
+            found.add(name);
+            infos.add(info);
+        });
+
+        // Nyers értékek (a 0 súlyú tápanyagok kimaradnak)
+        int[] dimensions = usedDimensions();
+        int dims = dimensions.length;
+        float[] vectors = new float[found.size() * dims];
+        double[] sum = new double[dims];
+        double[] sumSquares = new double[dims];
+        for (int row = 0; row < found.size(); row++) {
+            NutritionInfo info = infos.get(row);
+            int base = row * dims;
+            for (int d = 0; d < dims; d++) {
+                double value = info.getValue(dimensions[d]);
+                vectors[base + d] = (float) value;
+                sum[d] += value;
+                sumSquares[d] += value * value;
+            }
+        }
+
+        // Normalizálás: (érték - átlag) / szórás * súly; állandó tápanyag súlya 0
+        int n = found.size();
+        double[] offset = new double[dims];
+        double[] scale = new double[dims];
+        for (int d = 0; d < dims; d++) {
+            double mean = n > 0 ? sum[d] / n : 0;
+            double variance = n > 0 ? Math.max(0, sumSquares[d] / n - mean * mean) : 0;
+            double deviation = Math.sqrt(variance);
+            offset[d] = mean;
+            scale[d] = deviation > 0 ? weights[dimensions[d]] / deviation : 0;
+        }
+        for (int row = 0; row < n; row++) {
+            int base = row * dims;
+            for (int d = 0; d < dims; d++) {
+                vectors[base + d] = (float) ((vectors[base + d] - offset[d]) * scale[d]);
+            }
+        }
+        return new Tree(metric, found.toArray(new String[0]), dimensions, offset, scale, vectors);
+    }
+
+    private int[] usedDimensions() {
+        int count = 0;
+        for (double weight : weights) {
+            if (weight > 0) {
+                count++;
+            }
+        }
+        int[] dimensions = new int[count];
+        int d = 0;
+        for (int nutrient = 0; nutrient < weights.length; nutrient++) {
+            if (weights[nutrient] > 0) {
+                dimensions[d++] = nutrient;
+            }
+        }
+        return dimensions;
+    }
+
+    /**
+     * Egy felépített, változtathatatlan VP-fa. A fa implicit: az items tömb egy
+     * [lo, hi) szelete egy részfa; nagyobb szeletnél items[lo] a vantage pont,
+     * [lo + 1, mid) a sugáron belüli, [mid, hi) a sugáron kívüli pontok.
+     */
+    private static final class Tree {
+        final Metric metric;
+        final String[] names;
+        final Map<String, Integer> rows;
+        final int[] dimensions;
+        final double[] offset;
+        final double[] scale;
+        final int dims;
+        final float[] vectors;
+        final int[] items;
+        final double[] radius;
+
+        Tree(Metric metric, String[] names, int[] dimensions, double[] offset, double[] scale, float[] vectors) {
+            this.metric = metric;
+            this.names = names;
+            this.dimensions = dimensions;
+            this.offset = offset;
+            this.scale = scale;
+            this.dims = dimensions.length;
+            this.vectors = vectors;
+            this.rows = new HashMap<>(names.length * 2);
+            for (int row = 0; row < names.length; row++) {
+                rows.put(names[row], row);
+            }
+            this.items = new int[names.length];
+            for (int i = 0; i < items.length; i++) {
+                items[i] = i;
+            }
+            this.radius = new double[names.length];
+            build(0, names.length, new double[names.length], new SplittableRandom(42));
+        }
+
+        float[] normalize(NutritionInfo info) {
+            float[] vector = new float[dims];
+            for (int d = 0; d < dims; d++) {
+                vector[d] = (float) ((info.getValue(dimensions[d]) - offset[d]) * scale[d]);
+            }
+            return vector;
+        }
+
+        private void build(int lo, int hi, double[] distances, SplittableRandom random) {
+            while (hi - lo > LEAF_SIZE) {
+                // Véletlen vantage pont a szelet elejére
+                swap(lo, lo + random.nextInt(hi - lo), distances);
+                int vantage = items[lo];
+                for (int i = lo + 1; i < hi; i++) {
+                    distances[i] = distance(vantage * dims, items[i]);
+                }
+                int mid = (lo + 1 + hi) >>> 1;
+                select(lo + 1, hi, mid, distances);
+                radius[lo] = distances[mid];
+                build(lo + 1, mid, distances, random);
+                // A külső részfát ciklussal folytatjuk (kisebb rekurziós mélység)
+                lo = mid;
+            }
+        }
+
+        /**
+         * Részleges rendezés (quickselect): a [from, to) szeletben a k. pozícióra a k.
+         * legkisebb távolság kerül, előtte a nem nagyobbak, utána a nem kisebbek
+         */
+        private void select(int from, int to, int k, double[] distances) {
+            int lo = from;
+            int hi = to - 1;
+            while (lo < hi) {
+                double pivot = distances[(lo + hi) >>> 1];
+                int i = lo;
+                int j = hi;
+                while (i <= j) {
+                    while (distances[i] < pivot) {
+                        i++;
+                    }
+                    while (distances[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i++, j--, distances);
+                    }
+                }
+                if (k <= j) {
+                    hi = j;
+                } else if (k >= i) {
+                    lo = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void swap(int a, int b, double[] distances) {
+            int item = items[a];
+            items[a] = items[b];
+            items[b] = item;
+            double distance = distances[a];
+            distances[a] = distances[b];
+            distances[b] = distance;
+        }
+
+        List<Match> search(float[] query, int k, int exclude) {
+            if (k < 0) {
+                throw new IllegalArgumentException("A találatok száma nem lehet negatív: " + k);
+            }
+            Search search = new Search(query, Math.min(k, names.length), exclude);
+            if (search.capacity > 0) {
+                search(0, names.length, search);
+            }
+            return search.results(names);
+        }
+
+        private void search(int lo, int hi, Search search) {
+            while (hi - lo > LEAF_SIZE) {
+                int vantage = items[lo];
+                double d = distance(search.query, vantage * dims);
+                search.offer(vantage, d);
+                double mu = radius[lo];
+                int mid = (lo + 1 + hi) >>> 1;
+                // A közelebbi oldal először, hogy a küszöb (tau) minél előbb szűküljön
+                if (d < mu) {
+                    if (d - search.tau() <= mu) {
+                        search(lo + 1, mid, search);
+                    }
+                    if (d + search.tau() < mu) {
+                        return;
+                    }
+                    lo = mid;
+                } else {
+                    if (d + search.tau() >= mu) {
+                        search(mid, hi, search);
+                    }
+                    if (d - search.tau() > mu) {
+                        return;
+                    }
+                    hi = mid;
+                    lo = lo + 1;
+                }
+            }
+            for (int i = lo; i < hi; i++) {
+                search.offer(items[i], distance(search.query, items[i] * dims));
+            }
+        }
+
+        private double distance(int base, int row) {
+            int other = row * dims;
+            switch (metric) {
+                case MANHATTAN: {
+                    double sum = 0;
+                    for (int d = 0; d < dims; d++) {
+                        sum += Math.abs(vectors[base + d] - vectors[other + d]);
+                    }
+                    return sum;
+                }
+                case CHEBYSHEV: {
+                    double max = 0;
+                    for (int d = 0; d < dims; d++) {
+                        max = Math.max(max, Math.abs(vectors[base + d] - vectors[other + d]));
+                    }
+                    return max;
+                }
+                default: {
+                    double sum = 0;
+                    for (int d = 0; d < dims; d++) {
+                        double diff = vectors[base + d] - vectors[other + d];
+                        sum += diff * diff;
+                    }
+                    return Math.sqrt(sum);
+                }
+            }
+        }
+
+        private double distance(float[] query, int base) {
+            switch (metric) {
+                case MANHATTAN: {
+                    double sum = 0;
+                    for (int d = 0; d < dims; d++) {
+                        sum += Math.abs(query[d] - vectors[base + d]);
+                    }
+                    return sum;
+                }
+                case CHEBYSHEV: {
+                    double max = 0;
+                    for (int d = 0; d < dims; d++) {
+                        max = Math.max(max, Math.abs(query[d] - vectors[base + d]));
+                    }
+                    return max;
+                }
+                default: {
+                    double sum = 0;
+                    for (int d = 0; d < dims; d++) {
+                        double diff = query[d] - vectors[base + d];
+                        sum += diff * diff;
+                    }
+                    return Math.sqrt(sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * Egy keresés állapota: a legjobb k találat max-kupacban (a gyökér a legtávolabbi)
+     */
+    private static final class Search {
+        final float[] query;
+        final int capacity;
+        final int exclude;
+        final int[] rows;
+        final double[] distances;
+        int size;
+
+        Search(float[] query, int capacity, int exclude) {
+            this.query = query;
+            this.capacity = capacity;
+            this.exclude = exclude;
+            this.rows = new int[capacity];
+            this.distances = new double[capacity];
+        }
+
+        /**
+         * A jelenlegi k. legjobb távolság (amíg nincs k találat, végtelen)
+         */
+        double tau() {
+            return size < capacity ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        void offer(int row, double distance) {
+            if (row == exclude) {
+                return;
+            }
+            if (size < capacity) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (distances[parent] >= distance) {
+                        break;
+                    }
+                    rows[i] = rows[parent];
+                    distances[i] = distances[parent];
+                    i = parent;
+                }
+                rows[i] = row;
+                distances[i] = distance;
+            } else if (distance < distances[0]) {
+                siftDown(row, distance, size);
+            }
+        }
+
+        private void siftDown(int row, double distance, int heapSize) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                rows[i] = rows[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            rows[i] = row;
+            distances[i] = distance;
+        }
+
+        List<Match> results(String[] names) {
+            // Kiürítés a legtávolabbitól kezdve, hátulról töltve
+            Match[] matches = new Match[size];
+            for (int i = size - 1; i >= 0; i--) {
+                matches[i] = new Match(names[rows[0]], distances[0]);
+                size--;
+                if (size > 0) {
+                    siftDown(rows[size], distances[size], size);
+                }
+            }
+            return Arrays.asList(matches);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tápanyag küszöb lekérdezés: tartomány feltételek ÉS kapcsolata, opcionális
+ * rendezéssel és találatszám korláttal. Változtathatatlan; a módosító metódusok
+ * új példányt adnak vissza. Végrehajtás: ColumnarNutritionStore.query.
+ *
+ * Szöveges alak (parse):
+ *   sugar &lt; 5 AND fiber &gt;= 6 ORDER BY protein DESC LIMIT 20
+ */
+final class NutrientQuery {
+    static final int NO_LIMIT = Integer.MAX_VALUE;
+
+    private static final Pattern ORDER_BY = Pattern.compile(
+            "\\s+ORDER\\s+BY\\s+(\\w+)(?:\\s+(ASC|DESC))?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LIMIT = Pattern.compile("\\s+LIMIT\\s+(\\d+)\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern AND = Pattern.compile("\\s+AND\\s+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CONDITION = Pattern.compile(
+            "\\s*(\\w+)\\s*(<=|>=|<|>|=)\\s*(-?\\d+(?:[.,]\\d+)?)\\s*");
+
+    final List<RangePredicate> predicates;
+    // Rendezési tápanyag indexe; -1, ha nincs rendezés
+    final int orderBy;
+    final boolean descending;
+    final int limit;
+
+    private NutrientQuery(List<RangePredicate> predicates, int orderBy, boolean descending, int limit) {
+        this.predicates = predicates;
+        this.orderBy = orderBy;
+        this.descending = descending;
+        this.limit = limit;
+    }
+
+    static NutrientQuery where(RangePredicate... predicates) {
+        return new NutrientQuery(Collections.unmodifiableList(new ArrayList<>(Arrays.asList(predicates))),
+                -1, false, NO_LIMIT);
+    }
+
+    NutrientQuery and(RangePredicate predicate) {
+        List<RangePredicate> list = new ArrayList<>(predicates);
+        list.add(predicate);
+        return new NutrientQuery(Collections.unmodifiableList(list), orderBy, descending, limit);
+    }
+
+    /**
+     * @throws IllegalArgumentException ismeretlen tápanyag esetén
+     */
+    NutrientQuery orderBy(String nutrient, boolean descending) {
+        int index = NutritionInfo.indexOf(nutrient);
+        if (index < 0) {
+            throw new IllegalArgumentException("Ismeretlen tápanyag: " + nutrient);
+        }
+        return new NutrientQuery(predicates, index, descending, limit);
+    }
+
+    NutrientQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("A találatok száma nem lehet negatív: " + limit);
+        }
+        return new NutrientQuery(predicates, orderBy, descending, limit);
+    }
+
+    /**
+     * Szöveges lekérdezés értelmezése (a kulcsszavak kis- és nagybetűvel is írhatók,
+     * tizedesvessző is megengedett)
+     *
+     * @throws IllegalArgumentException hibás szintaxis vagy ismeretlen tápanyag esetén
+     */
+    static NutrientQuery parse(String text) {
+        String rest = " " + text.trim();
+        int limit = NO_LIMIT;
+        Matcher limitMatcher = LIMIT.matcher(rest);
+        if (limitMatcher.find()) {
+            limit = Integer.parseInt(limitMatcher.group(1));
+            rest = rest.substring(0, limitMatcher.start());
+        }
+        String orderNutrient = null;
+        boolean descending = false;
+        Matcher orderMatcher = ORDER_BY.matcher(rest);
+        if (orderMatcher.find()) {
+            if (orderMatcher.end() != rest.length()) {
+                throw new IllegalArgumentException("Hibás lekérdezés az ORDER BY után: " + text);
+            }
+            orderNutrient = orderMatcher.group(1);
+            descending = orderMatcher.group(2) != null
+                    && orderMatcher.group(2).toUpperCase(Locale.ROOT).equals("DESC");
+            rest = rest.substring(0, orderMatcher.start());
+        }
+
+        List<RangePredicate> predicates = new ArrayList<>();
+        if (!rest.isBlank()) {
+            for (String part : AND.split(rest.trim())) {
+                Matcher condition = CONDITION.matcher(part);
+                if (!condition.matches()) {
+                    throw new IllegalArgumentException("Hibás feltétel: " + part.trim());
+                }
+                predicates.add(predicate(condition.group(1), condition.group(2),
+                        Double.parseDouble(condition.group(3).replace(',', '.'))));
+            }
+        }
+
+        NutrientQuery query = where(predicates.toArray(new RangePredicate[0])).limit(limit);
+        return orderNutrient != null ? query.orderBy(orderNutrient, descending) : query;
+    }
+
+    private static RangePredicate predicate(String nutrient, String operator, double value) {
+        switch (operator) {
+            case "<":
+                return RangePredicate.lessThan(nutrient, value);
+            case "<=":
+                return RangePredicate.atMost(nutrient, value);
+            case ">":
+                return RangePredicate.greaterThan(nutrient, value);
+            case ">=":
+                return RangePredicate.atLeast(nutrient, value);
+            default:
+                return RangePredicate.between(nutrient, value, value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (RangePredicate predicate : predicates) {
+            if (sb.length() > 0) {
+                sb.append(" AND ");
+            }
+            sb.append(predicate);
+        }
+        if (orderBy >= 0) {
+            sb.append(" ORDER BY ").append(NutritionInfo.getNutrientName(orderBy)).append(descending ? " DESC" : " ASC");
+        }
+        if (limit != NO_LIMIT) {
+            sb.append(" LIMIT ").append(limit);
+        }
+        return sb.toString().trim();
+    }
+}
@@ -1,5 +1,9 @@
 import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableColumn;
+import javax.swing.table.TableColumnModel;
 import java.awt.*;
 import java.io.*;
 import java.net.HttpURLConnection;
@@ -8,12 +12,8 @@ import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
-import org.json.simple.JSONArray;
-//import org.json.JSONObject;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
 /**
  * Továbbfejlesztett Sütemények és Pékáruk Tápérték Kalkulátora
@@ -28,21 +28,47 @@ public class NutritionCalculator extends JFrame {
     private final JTable ingredientTable;
     private final DefaultTableModel tableModel;
     private final JPanel resultPanel;
+    private final JLabel resultSummaryLabel;
+    private final ResultTableModel resultTableModel;
     private final JTabbedPane tabbedPane;
 
     // Adatbázis és egyéb globális objektumok
     private final NutritionDatabase nutritionDb;
+    // null, amíg a háttérszálon épül (vagy ha a felépítése nem sikerült)
+    private volatile IngredientSearchIndex ingredientIndex;
+    // Csak az EDT-n: igaz, ha a keresőindex nem épült fel, ekkor a régi listás választó marad
+    private boolean ingredientIndexFailed;
+    private final NutrientNeighbourIndex neighbourIndex;
+    private final RunningNutritionTotals runningTotals;
+    private final CalculationPipeline calculationPipeline;
+    private final javax.swing.Timer liveRefreshTimer;
     private Recipe currentRecipe;
     private final DecimalFormat df = new DecimalFormat("#.##");
 
+    // OpenFoodFacts keresés és válasz gyorsítótár
+    private static final int SEARCH_PAGE_SIZE = 10;
+    private static final int SUGGESTION_LIMIT = 20;
+    private static final int SUBSTITUTE_LIMIT = 10;
+    // Az élő frissítés ennyi ideig vár a szerkesztések elcsendesedésére
+    private static final int LIVE_REFRESH_DELAY_MILLIS = 150;
+    private static final long SEARCH_CACHE_TTL_MILLIS = 24L * 60 * 60 * 1000;
+    private static final long SEARCH_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+    private final OpenFoodFactsClient openFoodFactsClient;
+
     // Menüpontok
     private JMenuItem saveMenuItem;
     private JMenuItem loadMenuItem;
     private JMenuItem exitMenuItem;
     private JMenuItem searchApiMenuItem;
     private JMenuItem addCustomIngredientMenuItem;
+    private JMenuItem saveAsCompositeMenuItem;
+    private JMenuItem findSubstitutesMenuItem;
 
     public NutritionCalculator() {
+        this(new NutritionDatabase());
+    }
+
+    public NutritionCalculator(NutritionDatabase database) {
         // Alap beállítások
         setTitle("Tápérték Kalkulátor");
         setSize(1000, 700);
@@ -50,7 +76,13 @@ public class NutritionCalculator extends JFrame {
         setLayout(new BorderLayout(10, 10));
 
         // Adatbázis inicializálása
-        nutritionDb = new NutritionDatabase();
+        nutritionDb = database;
+        buildIngredientIndex();
+        neighbourIndex = new NutrientNeighbourIndex(nutritionDb);
+        calculationPipeline = new CalculationPipeline(nutritionDb, LIVE_REFRESH_DELAY_MILLIS);
+        liveRefreshTimer = new javax.swing.Timer(LIVE_REFRESH_DELAY_MILLIS, e -> refreshLiveResults());
+        liveRefreshTimer.setRepeats(false);
+        openFoodFactsClient = new OpenFoodFactsClient(OpenFoodFactsClient.DEFAULT_BASE_URL, createSearchCache());
         currentRecipe = new Recipe("Új recept");
 
         // Menüsor létrehozása
@@ -71,6 +103,9 @@ public class NutritionCalculator extends JFrame {
         // Táblázat inicializálása
         ingredientTable = new JTable(tableModel);
 
+        // Futó összegek: minden táblázat módosítás után élőben frissítjük az eredményt
+        runningTotals = new RunningNutritionTotals(tableModel, nutritionDb, 0, 1, this::scheduleLiveRefresh);
+
         // Fül panel létrehozása
         tabbedPane = new JTabbedPane();
 
@@ -78,22 +113,33 @@ public class NutritionCalculator extends JFrame {
         JPanel recipePanel = createRecipePanel();
         tabbedPane.addTab("Recept szerkesztés", recipePanel);
 
-        // Eredmény panel létrehozása
-        resultPanel = new JPanel();
-        resultPanel.setLayout(new BoxLayout(resultPanel, BoxLayout.Y_AXIS));
+        // Eredmény panel létrehozása: a táblázat cellái frissítéskor a helyükön változnak
+        resultPanel = new JPanel(new BorderLayout(5, 5));
         resultPanel.setBorder(BorderFactory.createTitledBorder("Tápérték (100g termékre)"));
-
-        JScrollPane resultScrollPane = new JScrollPane(resultPanel);
-        resultScrollPane.setPreferredSize(new Dimension(250, 600));
+        resultSummaryLabel = new JLabel(" ");
+        resultTableModel = new ResultTableModel();
+        JTable resultTable = createResultTable(resultTableModel);
+        resultPanel.add(resultSummaryLabel, BorderLayout.NORTH);
+        resultPanel.add(new JScrollPane(resultTable), BorderLayout.CENTER);
+        resultPanel.setPreferredSize(new Dimension(330, 600));
 
         // Fő panelba elemek hozzáadása
         add(tabbedPane, BorderLayout.CENTER);
-        add(resultScrollPane, BorderLayout.EAST);
+        add(resultPanel, BorderLayout.EAST);
 
         // Kezdeti állapot beállítása
         updateRecipeNameDisplay();
     }
 
+    /**
+     * Keresési gyorsítótár a felhasználó könyvtárában; ha a lemez szint nem érhető el, csak memóriában
+     */
+    private static OpenFoodFactsCache createSearchCache() {
+        java.nio.file.Path directory = java.nio.file.Paths.get(
+                System.getProperty("user.home"), ".nutritioncalculator", "off-cache");
+        return new OpenFoodFactsCache(256, directory, SEARCH_CACHE_TTL_MILLIS, SEARCH_CACHE_MAX_BYTES);
+    }
+
     private void createMenuBar() {
         JMenuBar menuBar = new JMenuBar();
 
@@ -112,9 +158,13 @@ public class NutritionCalculator extends JFrame {
         JMenu databaseMenu = new JMenu("Adatbázis");
         searchApiMenuItem = new JMenuItem("Keresés OpenFoodFacts-ben");
         addCustomIngredientMenuItem = new JMenuItem("Saját összetevő hozzáadása");
+        saveAsCompositeMenuItem = new JMenuItem("Recept mentése összetevőként");
+        findSubstitutesMenuItem = new JMenuItem("Hasonló összetevők keresése");
 
         databaseMenu.add(searchApiMenuItem);
         databaseMenu.add(addCustomIngredientMenuItem);
+        databaseMenu.add(saveAsCompositeMenuItem);
+        databaseMenu.add(findSubstitutesMenuItem);
 
         // Menüelemek hozzáadása
         menuBar.add(fileMenu);
@@ -127,6 +177,8 @@ public class NutritionCalculator extends JFrame {
         exitMenuItem.addActionListener(e -> System.exit(0));
         searchApiMenuItem.addActionListener(e -> searchOpenFoodFacts());
         addCustomIngredientMenuItem.addActionListener(e -> addCustomIngredient());
+        saveAsCompositeMenuItem.addActionListener(e -> saveRecipeAsComposite());
+        findSubstitutesMenuItem.addActionListener(e -> findSubstitutes());
     }
 
     private JPanel createRecipePanel() {
@@ -180,9 +232,8 @@ public class NutritionCalculator extends JFrame {
     }
 
     private void addIngredient() {
-        String[] availableIngredients = nutritionDb.getAvailableIngredients();
-
-        if (availableIngredients.length == 0) {
+        IngredientSearchIndex index = ingredientIndex;
+        if (index != null && index.size() == 0) {
             JOptionPane.showMessageDialog(
                     this,
                     "Nincs elérhető összetevő az adatbázisban. Kérlek, adj hozzá összetevőket először.",
@@ -191,14 +242,7 @@ public class NutritionCalculator extends JFrame {
             return;
         }
 
-        String ingredient = (String) JOptionPane.showInputDialog(
-                this,
-                "Válassz összetevőt:",
-                "Összetevő hozzáadása",
-                JOptionPane.QUESTION_MESSAGE,
-                null,
-                availableIngredients,
-                availableIngredients[0]);
+        String ingredient = chooseIngredient();
 
         if (ingredient != null) {
             String weightStr = JOptionPane.showInputDialog(
@@ -213,9 +257,6 @@ public class NutritionCalculator extends JFrame {
 
                 // Hozzáadjuk a recepthez is
                 currentRecipe.addIngredient(ingredient, weight);
-
-                // Frissítjük a táblázatot
-                tableModel.fireTableDataChanged();
             } catch (NumberFormatException e) {
                 JOptionPane.showMessageDialog(
                         this,
@@ -226,6 +267,144 @@ public class NutritionCalculator extends JFrame {
         }
     }
 
+    /**
+     * A keresőindex felépítése háttérszálon: nagy adatbázisnál másodpercekig tart, ezalatt
+     * a felület már használható, csak az összetevő választás nem
+     */
+    private void buildIngredientIndex() {
+        new SwingWorker<IngredientSearchIndex, Void>() {
+            @Override
+            protected IngredientSearchIndex doInBackground() {
+                return new IngredientSearchIndex(nutritionDb);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    ingredientIndex = get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // Kereső nélkül is választható összetevő, a teljes listából
+                    ingredientIndexFailed = true;
+                    System.err.println("Nem sikerült felépíteni az összetevők keresőjét: " + e.getCause());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Összetevő választás a teljes névlistából (ha a keresőindex nem érhető el)
+     */
+    private String chooseIngredientFromList() {
+        String[] availableIngredients = nutritionDb.getAvailableIngredients();
+        if (availableIngredients.length == 0) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Nincs elérhető összetevő az adatbázisban. Kérlek, adj hozzá összetevőket először.",
+                    "Hiba",
+                    JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        return (String) JOptionPane.showInputDialog(
+                this,
+                "Válassz összetevőt:",
+                "Összetevő hozzáadása",
+                JOptionPane.QUESTION_MESSAGE,
+                null,
+                availableIngredients,
+                availableIngredients[0]);
+    }
+
+    /**
+     * Összetevő választó gépelés közbeni kereséssel (ékezet nélkül és kisebb elgépelésekkel is)
+     */
+    private String chooseIngredient() {
+        IngredientSearchIndex index = ingredientIndex;
+        if (index == null) {
+            if (ingredientIndexFailed) {
+                return chooseIngredientFromList();
+            }
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Az összetevők keresője még készül, kérlek próbáld újra egy pillanat múlva.",
+                    "Összetevő kereső",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return null;
+        }
+
+        JTextField queryField = new JTextField(25);
+        DefaultListModel<String> suggestions = new DefaultListModel<>();
+        JList<String> suggestionList = new JList<>(suggestions);
+        suggestionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        suggestionList.setVisibleRowCount(10);
+
+        // Minden billentyűleütésre frissítjük a találatokat
+        queryField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                updateSuggestions();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                updateSuggestions();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                updateSuggestions();
+            }
+
+            private void updateSuggestions() {
+                suggestions.clear();
+                for (String name : index.search(queryField.getText(), SUGGESTION_LIMIT)) {
+                    suggestions.addElement(name);
+                }
+                if (!suggestions.isEmpty()) {
+                    suggestionList.setSelectedIndex(0);
+                }
+            }
+        });
+
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.add(new JLabel("Kezdd el gépelni az összetevő nevét:"), BorderLayout.NORTH);
+        panel.add(queryField, BorderLayout.CENTER);
+        panel.add(new JScrollPane(suggestionList), BorderLayout.SOUTH);
+
+        // A beviteli mező kapja a fókuszt a dialógus megjelenésekor
+        queryField.addAncestorListener(new javax.swing.event.AncestorListener() {
+            @Override
+            public void ancestorAdded(javax.swing.event.AncestorEvent event) {
+                queryField.requestFocusInWindow();
+            }
+
+            @Override
+            public void ancestorRemoved(javax.swing.event.AncestorEvent event) {
+            }
+
+            @Override
+            public void ancestorMoved(javax.swing.event.AncestorEvent event) {
+            }
+        });
+
+        int option = JOptionPane.showConfirmDialog(
+                this,
+                panel,
+                "Összetevő hozzáadása",
+                JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.QUESTION_MESSAGE);
+        if (option != JOptionPane.OK_OPTION) {
+            return null;
+        }
+
+        String selected = suggestionList.getSelectedValue();
+        if (selected == null && nutritionDb.getNutritionInfo(queryField.getText().trim()) != null) {
+            selected = queryField.getText().trim();
+        }
+        return selected;
+    }
+
     private void removeIngredient() {
         int selectedRow = ingredientTable.getSelectedRow();
         if (selectedRow != -1) {
@@ -254,30 +433,26 @@ public class NutritionCalculator extends JFrame {
             return;
         }
 
-        // Összetevők összegyűjtése a táblázatból
-        List<Ingredient> ingredients = new ArrayList<>();
-        double totalWeight = 0;
-
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            String name = (String) tableModel.getValueAt(i, 0);
-            double weight = (Double) tableModel.getValueAt(i, 1);
-
-            NutritionInfo info = nutritionDb.getNutritionInfo(name);
-            if (info != null) {
-                ingredients.add(new Ingredient(name, weight, info));
-                totalWeight += weight;
-            } else {
-                JOptionPane.showMessageDialog(
-                        this,
-                        "Nem található tápérték információ a következő összetevőhöz: " + name,
-                        "Hiányzó adat",
-                        JOptionPane.WARNING_MESSAGE);
-                return;
-            }
+        // A futó összegek már naprakészek, nem kell a táblázatot újra bejárni
+        String missing = runningTotals.getFirstMissing();
+        if (missing != null) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Nem található tápérték információ a következő összetevőhöz: " + missing,
+                    "Hiányzó adat",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
         }
 
-        // A sütés előtti tápérték számítása
-        NutritionInfo rawResult = calculateTotalNutrition(ingredients, totalWeight);
+        double totalWeight = runningTotals.getTotalWeight();
+        if (totalWeight <= 0) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "A recept összsúlya nem lehet nulla.",
+                    "Hiba",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
         // Sütés utáni korrekciós tényező meghatározása
         boolean applyBakingCorrection = false;
@@ -322,365 +497,144 @@ public class NutritionCalculator extends JFrame {
             }
         }
 
-        // Tápérték számítása korrekció alkalmazásával vagy anélkül
-        NutritionInfo finalResult;
-
-        if (applyBakingCorrection) {
-            // Korrekciós faktor számítása (sütés előtti / sütés utáni súly)
-            double correctionFactor = totalWeight / bakedWeight;
-            finalResult = applyCorrectionFactor(rawResult, correctionFactor);
-
-            // Eredmények megjelenítése külön paneleken
-            displayBothResults(rawResult, finalResult, totalWeight, bakedWeight);
-        } else {
-            // Csak a nyers eredményt jelenítjük meg
-            displayResults(rawResult);
-        }
-    }
-
-    private NutritionInfo calculateTotalNutrition(List<Ingredient> ingredients, double totalWeight) {
-        // Alapértelmezett tápérték értékek
-        Map<String, Double> totalValues = new HashMap<>();
-
-        // Az összes lehetséges tápérték inicializálása 0-ra
-        for (String nutrient : NutritionInfo.getAllNutrients()) {
-            totalValues.put(nutrient, 0.0);
-        }
-
-        // Összetevők tápértékeinek összegzése
-        for (Ingredient ingredient : ingredients) {
-            NutritionInfo info = ingredient.getNutritionInfo();
-            double weight = ingredient.getWeight();
-
-            // Minden tápanyag összegzése
-            for (String nutrient : NutritionInfo.getAllNutrients()) {
-                double currentValue = totalValues.get(nutrient);
-                double ingredientValue = info.getValue(nutrient) * weight / 100.0;
-                totalValues.put(nutrient, currentValue + ingredientValue);
-            }
+        if (!applyBakingCorrection) {
+            // Csak a nyers eredményt jelenítjük meg, közvetlenül a futó összegekből
+            liveRefreshTimer.stop();
+            refreshLiveResults();
+            return;
         }
 
-        // Átszámítás 100g-ra
-        double factor = 100.0 / totalWeight;
-
-        NutritionInfo result = new NutritionInfo();
-        for (String nutrient : NutritionInfo.getAllNutrients()) {
-            result.setValue(nutrient, totalValues.get(nutrient) * factor);
-        }
+        // Sütési korrekcióval a teljes receptet a háttérszálon számoljuk
+        calculationPipeline.submit(recipeFromTable(), bakedWeight, false,
+                new CalculationPipeline.Callback() {
+                    @Override
+                    public void completed(CalculationPipeline.Result result) {
+                        // Eredmények megjelenítése külön paneleken
+                        displayBothResults(result.raw, result.baked, result.totalWeight, result.bakedWeight);
+                    }
 
-        return result;
+                    @Override
+                    public void failed(String message) {
+                        JOptionPane.showMessageDialog(
+                                NutritionCalculator.this,
+                                message,
+                                "Hiba",
+                                JOptionPane.ERROR_MESSAGE);
+                    }
+                });
     }
 
     /**
-     * Korrekciós faktor alkalmazása a tápértékekre
+     * Élő eredmény frissítés ütemezése; egy gyors eseménysorozat (pl. recept betöltése,
+     * gépelés) csak egyetlen újrarajzolást okoz
      */
-    private NutritionInfo applyCorrectionFactor(NutritionInfo original, double factor) {
-        NutritionInfo corrected = new NutritionInfo();
-
-        // Minden tápanyagra alkalmazzuk a korrekciós faktort
-        for (String nutrient : NutritionInfo.getAllNutrients()) {
-            // A víztartalom kivétel lehet, de mivel nem számoljuk külön, így minden értékre alkalmazzuk
-            corrected.setValue(nutrient, original.getValue(nutrient) * factor);
-        }
-
-        return corrected;
+    private void scheduleLiveRefresh() {
+        // A táblázat megváltozott: a még futó sütési számítás eredménye már elavult
+        calculationPipeline.cancel();
+        liveRefreshTimer.restart();
     }
 
     /**
-     * Mind a sütés előtti, mind a sütés utáni eredmények megjelenítése
+     * Az eredmény panel frissítése a futó összegekből, az EDT-n: O(tápanyagok),
+     * a táblázat sorainak bejárása és háttérszál nélkül
      */
-    private void displayBothResults(NutritionInfo rawResult, NutritionInfo bakedResult,
-                                    double rawWeight, double bakedWeight) {
-        // Töröljük a korábbi eredményeket
-        resultPanel.removeAll();
-
-        // Fő cím
-        JLabel titleLabel = new JLabel("Tápérték összehasonlítás");
-        titleLabel.setFont(new Font("Arial", Font.BOLD, 16));
-        titleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        resultPanel.add(titleLabel);
-        resultPanel.add(Box.createVerticalStrut(15));
-
-        // Két panel létrehozása egymás mellett (vagy alatt)
-        JPanel rawPanel = new JPanel();
-        rawPanel.setLayout(new BoxLayout(rawPanel, BoxLayout.Y_AXIS));
-        rawPanel.setBorder(BorderFactory.createTitledBorder("Sütés előtt (100g)"));
-
-        JPanel bakedPanel = new JPanel();
-        bakedPanel.setLayout(new BoxLayout(bakedPanel, BoxLayout.Y_AXIS));
-        bakedPanel.setBorder(BorderFactory.createTitledBorder("Sütés után (100g)"));
-
-        // Információs címkék
-        JLabel rawInfoLabel = new JLabel(String.format("Összsúly: %.0fg", rawWeight));
-        rawInfoLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        rawPanel.add(rawInfoLabel);
-
-        JLabel bakedInfoLabel = new JLabel(String.format("Összsúly: %.0fg", bakedWeight));
-        bakedInfoLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        bakedPanel.add(bakedInfoLabel);
-
-        JLabel weightLossLabel = new JLabel(String.format("Súlyveszteség: %.1f%%",
-                (1 - bakedWeight/rawWeight) * 100));
-        weightLossLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        bakedPanel.add(weightLossLabel);
-
-        rawPanel.add(Box.createVerticalStrut(10));
-        bakedPanel.add(Box.createVerticalStrut(10));
-
-        // Energia értékek
-        addComparisonRow(rawPanel, bakedPanel, "Energia (kJ)",
-                rawResult.getValue("energy"), bakedResult.getValue("energy"));
-        addComparisonRow(rawPanel, bakedPanel, "Energia (kcal)",
-                rawResult.getValue("energyKcal"), bakedResult.getValue("energyKcal"));
-
-        rawPanel.add(Box.createVerticalStrut(5));
-        bakedPanel.add(Box.createVerticalStrut(5));
-
-        // Makrotápanyagok
-        addComparisonRow(rawPanel, bakedPanel, "Zsír (g)",
-                rawResult.getValue("fat"), bakedResult.getValue("fat"));
-        addComparisonRow(rawPanel, bakedPanel, "Szénhidrát (g)",
-                rawResult.getValue("carbs"), bakedResult.getValue("carbs"));
-        addComparisonRow(rawPanel, bakedPanel, "- ebből cukor (g)",
-                rawResult.getValue("sugar"), bakedResult.getValue("sugar"));
-        addComparisonRow(rawPanel, bakedPanel, "Rost (g)",
-                rawResult.getValue("fiber"), bakedResult.getValue("fiber"));
-        addComparisonRow(rawPanel, bakedPanel, "Fehérje (g)",
-                rawResult.getValue("protein"), bakedResult.getValue("protein"));
-        addComparisonRow(rawPanel, bakedPanel, "Só (g)",
-                rawResult.getValue("salt"), bakedResult.getValue("salt"));
-
-        // Panelek hozzáadása a fő panelhez
-        JPanel comparisonPanel = new JPanel(new GridLayout(1, 2, 10, 0));
-        comparisonPanel.add(rawPanel);
-        comparisonPanel.add(bakedPanel);
-
-        resultPanel.add(comparisonPanel);
-
-        // További részletes tápérték adatok (opcionális)
-        JButton showDetailsBtn = new JButton("További részletek megjelenítése");
-        showDetailsBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
-        resultPanel.add(Box.createVerticalStrut(15));
-        resultPanel.add(showDetailsBtn);
-
-        showDetailsBtn.addActionListener(e -> {
-            // Új ablak a részletes tápérték adatokhoz
-            JDialog detailsDialog = new JDialog(this, "Részletes tápérték adatok", true);
-            detailsDialog.setSize(700, 500);
-            detailsDialog.setLayout(new BorderLayout());
-
-            JTabbedPane detailsTabs = new JTabbedPane();
-
-            // Sütés előtti részletek panel
-            JPanel rawDetailsPanel = new JPanel();
-            rawDetailsPanel.setLayout(new BoxLayout(rawDetailsPanel, BoxLayout.Y_AXIS));
-            JScrollPane rawScrollPane = new JScrollPane(rawDetailsPanel);
-
-            // Sütés utáni részletek panel
-            JPanel bakedDetailsPanel = new JPanel();
-            bakedDetailsPanel.setLayout(new BoxLayout(bakedDetailsPanel, BoxLayout.Y_AXIS));
-            JScrollPane bakedScrollPane = new JScrollPane(bakedDetailsPanel);
-
-            // Részletes tápérték adatok hozzáadása
-            addDetailedNutrition(rawDetailsPanel, rawResult);
-            addDetailedNutrition(bakedDetailsPanel, bakedResult);
-
-            detailsTabs.addTab("Sütés előtt", rawScrollPane);
-            detailsTabs.addTab("Sütés után", bakedScrollPane);
-
-            detailsDialog.add(detailsTabs, BorderLayout.CENTER);
-
-            // Bezárás gomb
-            JButton closeBtn = new JButton("Bezárás");
-            JPanel buttonPanel = new JPanel();
-            buttonPanel.add(closeBtn);
-            detailsDialog.add(buttonPanel, BorderLayout.SOUTH);
-
-            closeBtn.addActionListener(event -> detailsDialog.dispose());
-
-            // Megjelenítés
-            detailsDialog.setLocationRelativeTo(this);
-            detailsDialog.setVisible(true);
-        });
+    private void refreshLiveResults() {
+        NutritionInfo result = new NutritionInfo();
+        if (runningTotals.perHundredGrams(result)) {
+            displayResults(result);
+        } else {
+            clearResults();
+        }
+    }
 
-        // Panel frissítése
-        resultPanel.revalidate();
-        resultPanel.repaint();
+    private void clearResults() {
+        resultTableModel.clear();
+        resultSummaryLabel.setText(" ");
     }
 
     /**
-     * Részletes tápérték adatok hozzáadása egy panelhez
+     * A táblázat pillanatnyi tartalma receptként; az ismétlődő összetevők súlya összeadódik
+     * (ahogy a futó összegekben is)
      */
-    private void addDetailedNutrition(JPanel panel, NutritionInfo info) {
-        // Főbb tápértékek
-        JLabel titleLabel = new JLabel("Tápérték 100g termékre");
-        titleLabel.setFont(new Font("Arial", Font.BOLD, 14));
-        titleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-        panel.add(titleLabel);
-        panel.add(Box.createVerticalStrut(15));
-
-        // Az összes tápanyag hozzáadása
-        for (String nutrient : NutritionInfo.getAllNutrients()) {
-            double value = info.getValue(nutrient);
-            // Csak azokat az értékeket jelenítjük meg, amelyek nem nullák
-            if (value > 0.001) {
-                addResultRow(panel, getNutrientDisplayName(nutrient), value);
+    private Recipe recipeFromTable() {
+        Recipe recipe = new Recipe(currentRecipe.getName());
+        Map<String, Double> ingredients = recipe.ingredientsView();
+        for (int i = 0; i < tableModel.getRowCount(); i++) {
+            String name = (String) tableModel.getValueAt(i, 0);
+            Object weight = tableModel.getValueAt(i, 1);
+            if (name != null) {
+                double grams = weight instanceof Number ? ((Number) weight).doubleValue() : 0.0;
+                recipe.addIngredient(name, ingredients.getOrDefault(name, 0.0) + grams);
             }
         }
+        return recipe;
     }
 
     /**
-     * Tápanyag megjelenítési nevének megszerzése
+     * Eredmény táblázat: számok jobbra igazítva, a csoport címek félkövérek
      */
-    private String getNutrientDisplayName(String nutrient) {
-        Map<String, String> displayNames = new HashMap<>();
-        displayNames.put("energy", "Energia (kJ)");
-        displayNames.put("energyKcal", "Energia (kcal)");
-        displayNames.put("fat", "Zsír (g)");
-        displayNames.put("saturatedFat", "- ebből telített zsírsav (g)");
-        displayNames.put("monounsaturatedFat", "- ebből egyszeresen telítetlen (g)");
-        displayNames.put("polyunsaturatedFat", "- ebből többszörösen telítetlen (g)");
-        displayNames.put("transFat", "- ebből transz-zsír (g)");
-        displayNames.put("cholesterol", "Koleszterin (mg)");
-        displayNames.put("carbs", "Szénhidrát (g)");
-        displayNames.put("sugar", "- ebből cukor (g)");
-        displayNames.put("starch", "- ebből keményítő (g)");
-        displayNames.put("fiber", "Rost (g)");
-        displayNames.put("protein", "Fehérje (g)");
-        displayNames.put("salt", "Só (g)");
-        displayNames.put("sodium", "Nátrium (mg)");
-        displayNames.put("vitaminA", "A-vitamin (µg)");
-        displayNames.put("vitaminC", "C-vitamin (mg)");
-        displayNames.put("vitaminD", "D-vitamin (µg)");
-        displayNames.put("vitaminE", "E-vitamin (mg)");
-        displayNames.put("vitaminK", "K-vitamin (µg)");
-        displayNames.put("vitaminB1", "B1-vitamin (mg)");
-        displayNames.put("vitaminB2", "B2-vitamin (mg)");
-        displayNames.put("vitaminB3", "B3-vitamin (mg)");
-        displayNames.put("vitaminB6", "B6-vitamin (mg)");
-        displayNames.put("vitaminB12", "B12-vitamin (µg)");
-        displayNames.put("folate", "Folát (µg)");
-        displayNames.put("calcium", "Kalcium (mg)");
-        displayNames.put("iron", "Vas (mg)");
-        displayNames.put("magnesium", "Magnézium (mg)");
-        displayNames.put("phosphorus", "Foszfor (mg)");
-        displayNames.put("potassium", "Kálium (mg)");
-        displayNames.put("zinc", "Cink (mg)");
-
-        return displayNames.getOrDefault(nutrient, nutrient);
-    }
+    private JTable createResultTable(ResultTableModel model) {
+        JTable table = new JTable(model);
+        // Az oszlopokat mi hozzuk létre: a modell a saját figyelőit fordított sorrendben
+        // értesíti, így a táblázat automatikus újraépítése felülírná a beállított szélességeket
+        table.setAutoCreateColumnsFromModel(false);
+        table.setFillsViewportHeight(true);
+        table.setRowSelectionAllowed(false);
+        table.setDefaultRenderer(Double.class, new DefaultTableCellRenderer() {
+            {
+                setHorizontalAlignment(SwingConstants.RIGHT);
+            }
 
-    /**
-     * Összehasonlító sor hozzáadása két panelhez
-     */
-    private void addComparisonRow(JPanel leftPanel, JPanel rightPanel, String label,
-                                  double leftValue, double rightValue) {
-        DecimalFormat df = new DecimalFormat("#.##");
-
-        JPanel leftRow = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        JLabel leftLabel = new JLabel(label + ":");
-        leftLabel.setPreferredSize(new Dimension(120, 20));
-        JLabel leftValueLabel = new JLabel(df.format(leftValue));
-        leftRow.add(leftLabel);
-        leftRow.add(leftValueLabel);
-        leftPanel.add(leftRow);
-
-        JPanel rightRow = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        JLabel rightLabel = new JLabel(label + ":");
-        rightLabel.setPreferredSize(new Dimension(120, 20));
-        JLabel rightValueLabel = new JLabel(df.format(rightValue));
-        rightRow.add(rightLabel);
-        rightRow.add(rightValueLabel);
-        rightPanel.add(rightRow);
+            @Override
+            protected void setValue(Object value) {
+                setText(value != null ? df.format(value) : "");
+            }
+        });
+        table.setDefaultRenderer(String.class, new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                           boolean hasFocus, int row, int column) {
+                Component component = super.getTableCellRendererComponent(
+                        table, value, isSelected, hasFocus, row, column);
+                component.setFont(model.isHeading(row) ? table.getFont().deriveFont(Font.BOLD) : table.getFont());
+                return component;
+            }
+        });
+        // Az oszlopok a sütés utáni oszlop megjelenésekor vagy eltűnésekor újra létrejönnek
+        model.addTableModelListener(e -> {
+            if (e.getFirstRow() == TableModelEvent.HEADER_ROW) {
+                createResultColumns(table, model);
+            }
+        });
+        createResultColumns(table, model);
+        return table;
     }
 
-
-    private void displayResults(NutritionInfo result) {
-        // Töröljük a korábbi eredményeket
-        resultPanel.removeAll();
-
-        // Főbb tápértékek
-        JLabel titleLabel = new JLabel("Tápérték 100g termékre");
-        titleLabel.setFont(new Font("Arial", Font.BOLD, 14));
-        titleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-        resultPanel.add(titleLabel);
-        resultPanel.add(Box.createVerticalStrut(15));
-
-        // Energia
-        addResultRow(resultPanel, "Energia (kJ)", result.getValue("energy"));
-        addResultRow(resultPanel, "Energia (kcal)", result.getValue("energyKcal"));
-        resultPanel.add(Box.createVerticalStrut(10));
-
-        // Makrotápanyagok
-        addResultRow(resultPanel, "Zsír (g)", result.getValue("fat"));
-        addResultRow(resultPanel, "- ebből telített zsírsav (g)", result.getValue("saturatedFat"));
-        addResultRow(resultPanel, "- ebből egyszeresen telítetlen (g)", result.getValue("monounsaturatedFat"));
-        addResultRow(resultPanel, "- ebből többszörösen telítetlen (g)", result.getValue("polyunsaturatedFat"));
-        addResultRow(resultPanel, "- ebből transz-zsír (g)", result.getValue("transFat"));
-        addResultRow(resultPanel, "Koleszterin (mg)", result.getValue("cholesterol"));
-        resultPanel.add(Box.createVerticalStrut(10));
-
-        addResultRow(resultPanel, "Szénhidrát (g)", result.getValue("carbs"));
-        addResultRow(resultPanel, "- ebből cukor (g)", result.getValue("sugar"));
-        addResultRow(resultPanel, "- ebből keményítő (g)", result.getValue("starch"));
-        addResultRow(resultPanel, "Rost (g)", result.getValue("fiber"));
-        resultPanel.add(Box.createVerticalStrut(10));
-
-        addResultRow(resultPanel, "Fehérje (g)", result.getValue("protein"));
-        addResultRow(resultPanel, "Só (g)", result.getValue("salt"));
-        resultPanel.add(Box.createVerticalStrut(15));
-
-        // Vitaminok és ásványi anyagok
-        JLabel vitaminsLabel = new JLabel("Vitaminok és ásványi anyagok");
-        vitaminsLabel.setFont(new Font("Arial", Font.BOLD, 13));
-        vitaminsLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        resultPanel.add(vitaminsLabel);
-        resultPanel.add(Box.createVerticalStrut(10));
-
-        addResultRow(resultPanel, "A-vitamin (µg)", result.getValue("vitaminA"));
-        addResultRow(resultPanel, "C-vitamin (mg)", result.getValue("vitaminC"));
-        addResultRow(resultPanel, "D-vitamin (µg)", result.getValue("vitaminD"));
-        addResultRow(resultPanel, "E-vitamin (mg)", result.getValue("vitaminE"));
-        addResultRow(resultPanel, "K-vitamin (µg)", result.getValue("vitaminK"));
-        addResultRow(resultPanel, "B1-vitamin (mg)", result.getValue("vitaminB1"));
-        addResultRow(resultPanel, "B2-vitamin (mg)", result.getValue("vitaminB2"));
-        addResultRow(resultPanel, "B3-vitamin (mg)", result.getValue("vitaminB3"));
-        addResultRow(resultPanel, "B6-vitamin (mg)", result.getValue("vitaminB6"));
-        addResultRow(resultPanel, "B12-vitamin (µg)", result.getValue("vitaminB12"));
-        addResultRow(resultPanel, "Folát (µg)", result.getValue("folate"));
-        resultPanel.add(Box.createVerticalStrut(10));
-
-        addResultRow(resultPanel, "Kalcium (mg)", result.getValue("calcium"));
-        addResultRow(resultPanel, "Vas (mg)", result.getValue("iron"));
-        addResultRow(resultPanel, "Magnézium (mg)", result.getValue("magnesium"));
-        addResultRow(resultPanel, "Foszfor (mg)", result.getValue("phosphorus"));
-        addResultRow(resultPanel, "Kálium (mg)", result.getValue("potassium"));
-        addResultRow(resultPanel, "Nátrium (mg)", result.getValue("sodium"));
-        addResultRow(resultPanel, "Cink (mg)", result.getValue("zinc"));
-
-        // Panel frissítése
-        resultPanel.revalidate();
-        resultPanel.repaint();
+    private static void createResultColumns(JTable table, ResultTableModel model) {
+        TableColumnModel columns = table.getColumnModel();
+        while (columns.getColumnCount() > 0) {
+            columns.removeColumn(columns.getColumn(0));
+        }
+        for (int index = 0; index < model.getColumnCount(); index++) {
+            TableColumn column = new TableColumn(index, index == ResultTableModel.LABEL_COLUMN ? 200 : 65);
+            column.setHeaderValue(model.getColumnName(index));
+            columns.addColumn(column);
+        }
     }
 
     /**
-     * Eredmény sor hozzáadása panelhez
+     * Mind a sütés előtti, mind a sütés utáni eredmények megjelenítése
      */
-    private void addResultRow(JPanel panel, String label, double value) {
-        JPanel rowPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
-        rowPanel.setMaximumSize(new Dimension(250, 25));
-
-        JLabel nameLabel = new JLabel(label + ":");
-        nameLabel.setPreferredSize(new Dimension(180, 20));
-
-        JLabel valueLabel = new JLabel(df.format(value));
-
-        rowPanel.add(nameLabel);
-        rowPanel.add(valueLabel);
+    private void displayBothResults(NutritionInfo rawResult, NutritionInfo bakedResult,
+                                    double rawWeight, double bakedWeight) {
+        resultSummaryLabel.setText(String.format("Összsúly: %.0fg / %.0fg, súlyveszteség: %.1f%%",
+                rawWeight, bakedWeight, (1 - bakedWeight / rawWeight) * 100));
+        resultTableModel.showComparison(rawResult, bakedResult);
+    }
 
-        panel.add(rowPanel);
+    private void displayResults(NutritionInfo result) {
+        resultSummaryLabel.setText("Tápérték 100g termékre");
+        resultTableModel.showResult(result);
     }
 
     private void saveRecipe() {
@@ -708,8 +662,8 @@ public class NutritionCalculator extends JFrame {
                 file = new File(file.getAbsolutePath() + ".recipe");
             }
 
-            try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
-                out.writeObject(currentRecipe);
+            try {
+                RecipeCodec.write(file.toPath(), currentRecipe);
                 JOptionPane.showMessageDialog(
                         this,
                         "A recept sikeresen el lett mentve.",
@@ -743,8 +697,9 @@ public class NutritionCalculator extends JFrame {
         if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
             File file = fileChooser.getSelectedFile();
 
-            try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
-                Recipe loadedRecipe = (Recipe) in.readObject();
+            try {
+                // A régi formátumú fájlokat betöltéskor átírjuk az új formátumra
+                Recipe loadedRecipe = RecipeCodec.read(file.toPath(), true);
 
                 // Ellenőrizzük, hogy minden összetevő megtalálható-e az adatbázisban
                 boolean allIngredientsFound = true;
@@ -778,7 +733,7 @@ public class NutritionCalculator extends JFrame {
                         "A recept sikeresen be lett töltve.",
                         "Betöltés sikeres",
                         JOptionPane.INFORMATION_MESSAGE);
-            } catch (IOException | ClassNotFoundException e) {
+            } catch (IOException e) {
                 JOptionPane.showMessageDialog(
                         this,
                         "Hiba történt a betöltés során: " + e.getMessage(),
@@ -865,101 +820,8 @@ public class NutritionCalculator extends JFrame {
         }
     }
 
-    private List<FoodProduct> searchProducts(String query) throws IOException, ParseException {
-        List<FoodProduct> results = new ArrayList<>();
-
-        // URL kódolás
-        String encodedQuery = java.net.URLEncoder.encode(query, StandardCharsets.UTF_8.toString());
-        URL url = new URL("https://world.openfoodfacts.org/cgi/search.pl?search_terms=" +
-                encodedQuery + "&json=1&page_size=10");
-
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-
-        // Válasz olvasása
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-        }
-
-        // JSON feldolgozása
-        JSONParser parser = new JSONParser();
-        JSONObject jsonResponse = (JSONObject) parser.parse(response.toString());
-        JSONArray products = (JSONArray) jsonResponse.get("products");
-
-        // Termékek feldolgozása
-        for (Object productObj : products) {
-            JSONObject product = (JSONObject) productObj;
-
-            // Termék neve és azonosítója
-            String productName = product.containsKey("product_name") ?
-                    (String) product.get("product_name") : "Ismeretlen termék";
-
-            // Ha üres a név, próbáljuk a másik mezőt
-            if (productName == null || productName.trim().isEmpty()) {
-                productName = product.containsKey("generic_name") ?
-                        (String) product.get("generic_name") : "Ismeretlen termék";
-            }
-
-            String productId = (String) product.get("code");
-
-            // Tápérték adatok kinyerése (ha vannak)
-            NutritionInfo nutritionInfo = new NutritionInfo();
-
-            // Energia
-            if (product.containsKey("nutriments")) {
-                JSONObject nutriments = (JSONObject) product.get("nutriments");
-
-                nutritionInfo.setValue("energy", getDoubleValue(nutriments, "energy-kj_100g"));
-                nutritionInfo.setValue("energyKcal", getDoubleValue(nutriments, "energy-kcal_100g"));
-                nutritionInfo.setValue("fat", getDoubleValue(nutriments, "fat_100g"));
-                nutritionInfo.setValue("saturatedFat", getDoubleValue(nutriments, "saturated-fat_100g"));
-                nutritionInfo.setValue("carbs", getDoubleValue(nutriments, "carbohydrates_100g"));
-                nutritionInfo.setValue("sugar", getDoubleValue(nutriments, "sugars_100g"));
-                nutritionInfo.setValue("fiber", getDoubleValue(nutriments, "fiber_100g"));
-                nutritionInfo.setValue("protein", getDoubleValue(nutriments, "proteins_100g"));
-                nutritionInfo.setValue("salt", getDoubleValue(nutriments, "salt_100g"));
-                nutritionInfo.setValue("sodium", getDoubleValue(nutriments, "sodium_100g"));
-
-                // További adatok (ha vannak)
-                nutritionInfo.setValue("cholesterol", getDoubleValue(nutriments, "cholesterol_100g"));
-                nutritionInfo.setValue("transFat", getDoubleValue(nutriments, "trans-fat_100g"));
-                nutritionInfo.setValue("monounsaturatedFat", getDoubleValue(nutriments, "monounsaturated-fat_100g"));
-                nutritionInfo.setValue("polyunsaturatedFat", getDoubleValue(nutriments, "polyunsaturated-fat_100g"));
-
-                // Vitaminok és ásványi anyagok
-                nutritionInfo.setValue("vitaminA", getDoubleValue(nutriments, "vitamin-a_100g"));
-                nutritionInfo.setValue("vitaminC", getDoubleValue(nutriments, "vitamin-c_100g"));
-                nutritionInfo.setValue("calcium", getDoubleValue(nutriments, "calcium_100g"));
-                nutritionInfo.setValue("iron", getDoubleValue(nutriments, "iron_100g"));
-            }
-
-            // Termékobjektum létrehozása és hozzáadása a listához
-            FoodProduct foodProduct = new FoodProduct(productId, productName, nutritionInfo);
-            results.add(foodProduct);
-        }
-
-        return results;
-    }
-
-    private double getDoubleValue(JSONObject obj, String key) {
-        if (obj.containsKey(key)) {
-            Object value = obj.get(key);
-            if (value instanceof Number) {
-                return ((Number) value).doubleValue();
-            } else if (value instanceof String) {
-                try {
-                    return Double.parseDouble((String) value);
-                } catch (NumberFormatException e) {
-                    return 0.0;
-                }
-            }
-        }
-        return 0.0;
+    private List<FoodProduct> searchProducts(String query) throws IOException {
+        return openFoodFactsClient.search(query, SEARCH_PAGE_SIZE);
     }
 
     private void showProductSelectionDialog(List<FoodProduct> products) {
@@ -1011,6 +873,95 @@ public class NutritionCalculator extends JFrame {
         }
     }
 
+    /**
+     * Az aktuális recept felvétele összetett összetevőként (pl. előtészta, töltelék);
+     * a tápértéke az összetevői változásakor automatikusan frissül
+     */
+    private void saveRecipeAsComposite() {
+        if (tableModel.getRowCount() == 0) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    "A recept nem tartalmaz összetevőket.",
+                    "Figyelmeztetés",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        String ingredientName = JOptionPane.showInputDialog(
+                this,
+                "Add meg az összetett összetevő nevét:",
+                currentRecipe.getName());
+        if (ingredientName == null || ingredientName.trim().isEmpty()) {
+            return;
+        }
+
+        updateRecipeFromTable();
+        try {
+            nutritionDb.defineComposite(ingredientName.trim(), currentRecipe);
+            JOptionPane.showMessageDialog(
+                    this,
+                    "Az összetevő sikeresen hozzáadva az adatbázishoz.",
+                    "Sikeres hozzáadás",
+                    JOptionPane.INFORMATION_MESSAGE);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(
+                    this,
+                    e.getMessage(),
+                    "Hiba",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Egy kiválasztott összetevőhöz tápérték szerint leginkább hasonló összetevők listázása.
+     * A keresés háttérszálon fut, mert az első keresés (vagy egy módosítás után a következő)
+     * a teljes fát újraépíti, ami nagy adatbázisnál másodpercekig tart.
+     */
+    private void findSubstitutes() {
+        String ingredientName = chooseIngredient();
+        if (ingredientName == null) {
+            return;
+        }
+
+        SwingWorker<List<NutrientNeighbourIndex.Match>, Void> worker = new SwingWorker<>() {
+            @Override
+            protected List<NutrientNeighbourIndex.Match> doInBackground() {
+                return neighbourIndex.nearest(ingredientName, SUBSTITUTE_LIMIT);
+            }
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                findSubstitutesMenuItem.setEnabled(true);
+                try {
+                    StringBuilder message = new StringBuilder("Leginkább hasonló összetevők (" + ingredientName + "):\n");
+                    for (NutrientNeighbourIndex.Match match : get()) {
+                        message.append("\n").append(match.getName())
+                                .append(" (távolság: ").append(df.format(match.getDistance())).append(")");
+                    }
+                    JOptionPane.showMessageDialog(
+                            NutritionCalculator.this,
+                            message.toString(),
+                            "Hasonló összetevők",
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(
+                            NutritionCalculator.this,
+                            e.getCause().getMessage(),
+                            "Hiba",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+
+        // A keresés végéig nem indítható újabb
+        findSubstitutesMenuItem.setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        worker.execute();
+    }
+
     private void addCustomIngredient() {
         // Dialógus létrehozása
         JDialog dialog = new JDialog(this, "Saját összetevő hozzáadása", true);
@@ -1178,8 +1129,22 @@ public class NutritionCalculator extends JFrame {
             e.printStackTrace();
         }
 
+        // Opcionális argumentum: memóriába leképezett adatbázis fájl
+        NutritionDatabase database;
+        if (args.length > 0) {
+            try {
+                database = NutritionDatabase.open(java.nio.file.Paths.get(args[0]));
+            } catch (IOException e) {
+                System.err.println("Az adatbázis fájl nem nyitható meg: " + e.getMessage());
+                database = new NutritionDatabase();
+            }
+        } else {
+            database = new NutritionDatabase();
+        }
+
+        NutritionDatabase finalDatabase = database;
         SwingUtilities.invokeLater(() -> {
-            NutritionCalculator calculator = new NutritionCalculator();
+            NutritionCalculator calculator = new NutritionCalculator(finalDatabase);
             calculator.setVisible(true);
         });
     }
@@ -1,17 +1,89 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
- * Tápérték adatbázis osztály, amely tárolja az összetevők tápérték adatait
+ * Tápérték adatbázis osztály, amely tárolja az összetevők tápérték adatait.
+ * Opcionálisan egy memóriába leképezett adatbázis fájl szolgál alapként; a heapen
+ * tárolt bejegyzések (beépített és felhasználói összetevők) ezt felülírják.
+ *
+ * Szálbiztos: az egyes lekérdezések zárolás nélkül olvasnak, az írók egymást
+ * kizárják. A tárolt tápérték objektumok nem változnak (hozzáadáskor másolatot
+ * tárolunk), így egy lekérdezett objektum sosem látszik félig módosítva. Több
+ * összetevő egyszerre lekérdezhető egyetlen konzisztens állapotból (optimista
+ * olvasás, ütközés esetén olvasási zár).
+ *
+ * Összetett összetevők (pl. kovász, előtészták, töltelékek) más összetevőkből álló
+ * receptként definiálhatók. Ezek tápértékét a definiáláskor kiszámoljuk és
+ * tároljuk, így a lekérdezés költsége nem függ a beágyazás mélységétől; egy
+ * összetevő változásakor a tőle függő összetett összetevőket függőségi (DAG)
+ * sorrendben számoljuk újra.
  */
 class NutritionDatabase {
-    private Map<String, NutritionInfo> database;
+    // Törölt alap (fájlbeli) bejegyzések jelölése a heap rétegben
+    private static final NutritionInfo REMOVED = new NutritionInfo();
+
+    private final Map<String, NutritionInfo> database;
+    private final MappedNutritionStore baseStore;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Az írók kizárása és a több kulcsos olvasások konzisztenciája
+    private final StampedLock lock = new StampedLock();
+    private volatile long version;
+    // összetevő -> az utolsó módosításának sorszáma; a soha nem módosítottak és a módosítás
+    // után töröltek nincsenek benne, így a mérete nem nő a törölt nevekkel korlátlanul
+    private final Map<String, Long> ingredientVersions = new ConcurrentHashMap<>();
+
+    // Összetett összetevő -> összetevői (gramm); és fordítva: összetevő -> az őt használó összetettek.
+    // A függőségi gráfot csak az írási zár alatt módosítjuk.
+    private final Map<String, Map<String, Double>> composites = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+
+    /**
+     * Az adatbázis változásainak figyelője (pl. keresőindexek szinkronban tartásához).
+     * Az értesítések az írási zár alatt, a változások sorrendjében érkeznek; a figyelő
+     * olvashatja az adatbázist, de nem módosíthatja.
+     */
+    interface Listener {
+        void ingredientChanged(String name, NutritionInfo info);
+
+        void ingredientRemoved(String name);
+    }
 
     public NutritionDatabase() {
-        database = new HashMap<>();
+        this(null);
+    }
+
+    /**
+     * Adatbázis egy memóriába leképezett alap tárral (lehet null)
+     */
+    public NutritionDatabase(MappedNutritionStore baseStore) {
+        this.baseStore = baseStore;
+        database = new ConcurrentHashMap<>();
         initializeDatabase();
     }
 
+    /**
+     * Adatbázis megnyitása egy leképezett adatbázis fájl fölött
+     */
+    public static NutritionDatabase open(Path file) throws IOException {
+        return new NutritionDatabase(MappedNutritionStore.open(file));
+    }
+
     private void initializeDatabase() {
         // Alapvető összetevők hozzáadása
 
@@ -47,18 +119,11 @@ class NutritionDatabase {
         salt.setValue("sodium", 39000);
         database.put("Só", salt);
 
-        // Kovász (50% víz, 50% BL80 liszt)
-        NutritionInfo sourdough = new NutritionInfo();
-        sourdough.setValue("energy", bl80.getValue("energy") * 0.5);
-        sourdough.setValue("energyKcal", bl80.getValue("energyKcal") * 0.5);
-        sourdough.setValue("fat", bl80.getValue("fat") * 0.5);
-        sourdough.setValue("saturatedFat", bl80.getValue("saturatedFat") * 0.5);
-        sourdough.setValue("carbs", bl80.getValue("carbs") * 0.5);
-        sourdough.setValue("sugar", bl80.getValue("sugar") * 0.5);
-        sourdough.setValue("fiber", bl80.getValue("fiber") * 0.5);
-        sourdough.setValue("protein", bl80.getValue("protein") * 0.5);
-        sourdough.setValue("salt", bl80.getValue("salt") * 0.5);
-        database.put("Kovász", sourdough);
+        // Kovász (50% víz, 50% BL80 liszt) összetett összetevőként, minden tápanyaggal
+        Recipe sourdough = new Recipe("Kovász");
+        sourdough.addIngredient("BL80 liszt", 50);
+        sourdough.addIngredient("Víz", 50);
+        defineComposite("Kovász", sourdough);
 
         // Cukor (100g)
         NutritionInfo sugar = new NutritionInfo();
@@ -140,19 +205,472 @@ class NutritionDatabase {
     }
 
     public String[] getAvailableIngredients() {
-        return database.keySet().toArray(new String[0]);
+        List<String> names = new ArrayList<>();
+        forEachIngredient(names::add);
+        return names.toArray(new String[0]);
+    }
+
+    /**
+     * Az összes elérhető összetevő nevének bejárása másolat készítése nélkül.
+     * A bejárás alatti módosítások látszhatnak vagy nem (nem blokkolja az írókat).
+     */
+    public void forEachIngredient(Consumer<String> action) {
+        for (Map.Entry<String, NutritionInfo> entry : database.entrySet()) {
+            if (entry.getValue() != REMOVED) {
+                action.accept(entry.getKey());
+            }
+        }
+        if (baseStore != null) {
+            baseStore.forEachName(name -> {
+                if (!database.containsKey(name)) {
+                    action.accept(name);
+                }
+            });
+        }
+    }
+
+    /**
+     * Az összes összetevő neve és tápértéke, a lekérdezés mérés nélkül: a belső indexek
+     * teljes bejárásai nem torzítják a kívülről érkező lekérdezések találati arányát.
+     * A bejárás alatti módosítások látszhatnak vagy nem (nem blokkolja az írókat).
+     */
+    void forEachNutritionInfo(BiConsumer<String, NutritionInfo> action) {
+        for (Map.Entry<String, NutritionInfo> entry : database.entrySet()) {
+            if (entry.getValue() != REMOVED) {
+                action.accept(entry.getKey(), entry.getValue());
+            }
+        }
+        if (baseStore != null) {
+            baseStore.forEachName(name -> {
+                if (!database.containsKey(name)) {
+                    NutritionInfo info = baseStore.get(name);
+                    if (info != null) {
+                        action.accept(name, info);
+                    }
+                }
+            });
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Figyelő regisztrálása a meglévő nevek előzetes bejárásával; a kettő között
+     * nem történhet módosítás, így egy index sem maradhat le változásról
+     */
+    public void addListener(Listener listener, Consumer<String> existing) {
+        long stamp = lock.readLock();
+        try {
+            forEachIngredient(existing);
+            listeners.add(listener);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Mint a fenti, de a meglévő összetevők tápértékét is átadja, mérés nélkül
+     * (lásd forEachNutritionInfo)
+     */
+    void addListener(Listener listener, BiConsumer<String, NutritionInfo> existing) {
+        long stamp = lock.readLock();
+        try {
+            forEachNutritionInfo(existing);
+            listeners.add(listener);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
     }
 
+    /**
+     * Egy összetevő tápértéke zárolás nélkül; null, ha nem található.
+     * A visszaadott objektumot nem szabad módosítani.
+     */
     public NutritionInfo getNutritionInfo(String ingredient) {
-        return database.get(ingredient);
+        NutritionInfo info = lookup(ingredient);
+        count(info);
+        return info;
+    }
+
+    private NutritionInfo lookup(String ingredient) {
+        NutritionInfo info = database.get(ingredient);
+        if (info == REMOVED) {
+            return null;
+        }
+        if (info == null && baseStore != null) {
+            return baseStore.get(ingredient);
+        }
+        return info;
+    }
+
+    /**
+     * Az első count név tápértékének lekérdezése az out tömbbe egyetlen konzisztens
+     * adatbázis állapotból (a hiányzó összetevők helyén null). Ha közben nem volt
+     * írás, zárolás nélkül fut le; ütközés esetén olvasási zárral megismételjük.
+     */
+    public void getNutritionInfo(String[] names, int count, NutritionInfo[] out) {
+        getNutritionInfo(names, count, out, null);
     }
 
+    /**
+     * Mint a fenti, de a versions tömbbe (ha nem null) az összetevők változat
+     * sorszáma is bekerül, ugyanabból az állapotból
+     */
+    public void getNutritionInfo(String[] names, int count, NutritionInfo[] out, long[] versions) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            read(names, count, out, versions);
+            if (lock.validate(stamp)) {
+                count(out, count);
+                return;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            read(names, count, out, versions);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        count(out, count);
+    }
+
+    private void read(String[] names, int count, NutritionInfo[] out, long[] versions) {
+        for (int i = 0; i < count; i++) {
+            out[i] = lookup(names[i]);
+            if (versions != null) {
+                versions[i] = getIngredientVersion(names[i]);
+            }
+        }
+    }
+
+    // Találat / hiány számlálás a kívülről érkező lekérdezésekre (a belső olvasások nem számítanak)
+    private static void count(NutritionInfo info) {
+        if (info != null) {
+            Metrics.DATABASE_LOOKUPS.hit();
+        } else {
+            Metrics.DATABASE_LOOKUPS.miss();
+        }
+    }
+
+    private static void count(NutritionInfo[] infos, int count) {
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            if (infos[i] != null) {
+                hits++;
+            }
+        }
+        Metrics.DATABASE_LOOKUPS.record(hits, count - hits);
+    }
+
+    /**
+     * Az adatbázis állapotának sorszáma; minden módosítás növeli
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Egy összetevő utolsó módosításának sorszáma; a soha nem módosított (és a nem létező)
+     * összetevőké 0
+     */
+    public long getIngredientVersion(String name) {
+        Long ingredientVersion = ingredientVersions.get(name);
+        return ingredientVersion != null ? ingredientVersion : 0L;
+    }
+
+    /**
+     * Egyszerű összetevő hozzáadása vagy cseréje. Ha a név egy összetett összetevőé volt,
+     * az egyszerű összetevővé válik; a tőle függő összetett összetevők újraszámolódnak.
+     */
     public void addIngredient(String name, NutritionInfo info) {
-        database.put(name, info);
+        // Másolatot tárolunk, hogy a hívó későbbi módosításai ne látszódjanak az olvasóknak
+        NutritionInfo stored = new NutritionInfo();
+        stored.copyFrom(info);
+
+        DatabaseMutationEvent event = new DatabaseMutationEvent();
+        event.begin();
+        long stamp = lock.writeLock();
+        long before = version;
+        try {
+            unlinkComposite(name);
+            publish(name, stored);
+            recomputeDependents(name);
+            mutated(event, DatabaseMutationEvent.ADD, name, before, null);
+        } catch (RuntimeException e) {
+            mutated(event, DatabaseMutationEvent.ADD, name, before, e);
+            throw e;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
+    /**
+     * Összetett összetevő definiálása (vagy újradefiniálása) egy recept alapján;
+     * a tápértéke a recept 100g-ra vonatkoztatott tápértéke.
+     *
+     * @throws IllegalArgumentException ha egy összetevő nem található, a recept összsúlya
+     *                                  nem pozitív, vagy a definíció körkörös függőséget okozna
+     */
+    public void defineComposite(String name, Recipe recipe) {
+        Map<String, Double> components = Collections.unmodifiableMap(new LinkedHashMap<>(recipe.getIngredients()));
+
+        DatabaseMutationEvent event = new DatabaseMutationEvent();
+        event.begin();
+        long stamp = lock.writeLock();
+        long before = version;
+        try {
+            for (String component : components.keySet()) {
+                if (lookup(component) == null) {
+                    throw new IllegalArgumentException(
+                            "Nem található tápérték információ a következő összetevőhöz: " + component);
+                }
+                if (component.equals(name) || dependsOn(component, name)) {
+                    throw new IllegalArgumentException(
+                            "Körkörös hivatkozás: " + name + " nem tartalmazhatja a következőt: " + component);
+                }
+            }
+            NutritionInfo info = compute(components);
+
+            unlinkComposite(name);
+            composites.put(name, components);
+            for (String component : components.keySet()) {
+                dependents.computeIfAbsent(component, k -> new HashSet<>()).add(name);
+            }
+            publish(name, info);
+            recomputeDependents(name);
+            mutated(event, DatabaseMutationEvent.DEFINE_COMPOSITE, name, before, null);
+        } catch (RuntimeException e) {
+            mutated(event, DatabaseMutationEvent.DEFINE_COMPOSITE, name, before, e);
+            throw e;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Egy összetett összetevő definíciója (összetevő -> gramm); null, ha nem összetett
+     */
+    public Map<String, Double> getComposite(String name) {
+        return composites.get(name);
+    }
+
+    /**
+     * Összetevő törlése.
+     *
+     * @throws IllegalArgumentException ha egy összetett összetevő használja
+     */
     public void removeIngredient(String name) {
-        database.remove(name);
+        DatabaseMutationEvent event = new DatabaseMutationEvent();
+        event.begin();
+        long stamp = lock.writeLock();
+        long before = version;
+        try {
+            Set<String> users = dependents.get(name);
+            if (users != null && !users.isEmpty()) {
+                throw new IllegalArgumentException(
+                        "Az összetevőt a következő összetett összetevők használják: " + String.join(", ", users));
+            }
+            unlinkComposite(name);
+
+            boolean existed;
+            if (baseStore != null && baseStore.contains(name)) {
+                existed = database.put(name, REMOVED) != REMOVED;
+            } else {
+                NutritionInfo previous = database.remove(name);
+                existed = previous != null && previous != REMOVED;
+            }
+            if (existed) {
+                // A törölt összetevő változata 0 lesz, ez a régi (legalább 1-es) változatokkal
+                // nem egyezhet, így a bejegyzés elhagyható. A soha nem módosított (0-s változatú)
+                // összetevőnél viszont a 0 egy régi eredményt érvényesítene: ott a törlés változatát tároljuk.
+                if (ingredientVersions.remove(name) != null) {
+                    ++version;
+                } else {
+                    ingredientVersions.put(name, ++version);
+                }
+                for (Listener listener : listeners) {
+                    listener.ingredientRemoved(name);
+                }
+            }
+            mutated(event, DatabaseMutationEvent.REMOVE, name, before, null);
+        } catch (RuntimeException e) {
+            mutated(event, DatabaseMutationEvent.REMOVE, name, before, e);
+            throw e;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * JFR esemény rögzítése egy módosítás végén (még az írási zár alatt, hogy a
+     * változat különbség csak ezt a módosítást tartalmazza)
+     */
+    private void mutated(DatabaseMutationEvent event, String operation, String name, long before,
+                         RuntimeException failure) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.ingredient = name;
+            event.changedIngredients = version - before;
+            event.version = version;
+            event.failure = failure != null ? failure.getMessage() : null;
+            event.commit();
+        }
+    }
+
+    // --- Összetett összetevők (csak az írási zár alatt hívható) ---
+
+    /**
+     * Egy összetevő beírása a heap rétegbe, a változat növelése és a figyelők értesítése
+     */
+    private void publish(String name, NutritionInfo info) {
+        database.put(name, info);
+        ingredientVersions.put(name, ++version);
+        for (Listener listener : listeners) {
+            listener.ingredientChanged(name, info);
+        }
+    }
+
+    /**
+     * Igaz, ha az összetevő (közvetve) tartalmazza a target összetevőt
+     */
+    private boolean dependsOn(String ingredient, String target) {
+        Deque<String> stack = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+        stack.push(ingredient);
+        while (!stack.isEmpty()) {
+            Map<String, Double> components = composites.get(stack.pop());
+            if (components == null) {
+                continue;
+            }
+            for (String component : components.keySet()) {
+                if (component.equals(target)) {
+                    return true;
+                }
+                if (visited.add(component)) {
+                    stack.push(component);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Egy összetett összetevő definíciójának és a függőségi éleinek eltávolítása
+     */
+    private void unlinkComposite(String name) {
+        Map<String, Double> previous = composites.remove(name);
+        if (previous == null) {
+            return;
+        }
+        for (String component : previous.keySet()) {
+            Set<String> users = dependents.get(component);
+            if (users != null) {
+                users.remove(name);
+                if (users.isEmpty()) {
+                    dependents.remove(component);
+                }
+            }
+        }
+    }
+
+    /**
+     * Az összetevőtől (közvetve) függő összetett összetevők újraszámolása topologikus
+     * sorrendben, így minden összetett összetevő csak egyszer, a már frissített
+     * összetevőiből számolódik újra
+     */
+    private void recomputeDependents(String name) {
+        if (!dependents.containsKey(name)) {
+            return;
+        }
+
+        // Az érintett összetett összetevők és a köztük lévő bemenő élek száma
+        Map<String, Integer> pending = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(name);
+        Set<String> affected = new HashSet<>();
+        while (!queue.isEmpty()) {
+            for (String user : dependents.getOrDefault(queue.poll(), Collections.emptySet())) {
+                if (affected.add(user)) {
+                    queue.add(user);
+                }
+            }
+        }
+        for (String composite : affected) {
+            int inDegree = 0;
+            for (String component : composites.get(composite).keySet()) {
+                if (affected.contains(component)) {
+                    inDegree++;
+                }
+            }
+            pending.put(composite, inDegree);
+            if (inDegree == 0) {
+                queue.add(composite);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            String composite = queue.poll();
+            publish(composite, compute(composites.get(composite)));
+            for (String user : dependents.getOrDefault(composite, Collections.emptySet())) {
+                if (pending.merge(user, -1, Integer::sum) == 0) {
+                    queue.add(user);
+                }
+            }
+        }
+    }
+
+    /**
+     * Összetevők súlyozott tápértéke 100g-ra
+     */
+    private NutritionInfo compute(Map<String, Double> components) {
+        double[] totals = new double[NutritionInfo.NUTRIENT_COUNT];
+        double totalWeight = 0;
+        for (Map.Entry<String, Double> entry : components.entrySet()) {
+            NutritionInfo info = lookup(entry.getKey());
+            double factor = entry.getValue() / 100.0;
+            for (int n = 0; n < totals.length; n++) {
+                totals[n] += info.getValue(n) * factor;
+            }
+            totalWeight += entry.getValue();
+        }
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("A recept összsúlya nem lehet nulla.");
+        }
+
+        NutritionInfo result = new NutritionInfo();
+        for (int n = 0; n < totals.length; n++) {
+            result.setValue(n, totals[n] * 100.0 / totalWeight);
+        }
+        return result;
+    }
+
+    /**
+     * Az adatbázis teljes tartalmának mentése leképezhető adatbázis fájlba;
+     * a mentés egyetlen konzisztens állapotot ír ki (közben az írók várnak)
+     */
+    public void save(Path file) throws IOException {
+        long stamp = lock.readLock();
+        try (MappedNutritionStore.Builder builder = new MappedNutritionStore.Builder(file)) {
+            if (baseStore != null) {
+                baseStore.copyTo(builder, database.keySet());
+            }
+            for (Map.Entry<String, NutritionInfo> entry : database.entrySet()) {
+                if (entry.getValue() != REMOVED) {
+                    builder.add(entry.getKey(), entry.getValue());
+                }
+            }
+            builder.finish();
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 }
 
@@ -0,0 +1,267 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grafikus felülettől független receptszámító motor.
+ * A számítások a hívó által átadott eredmény pufferekbe írnak, így egy
+ * példány újrahasznosításával a számítás nem foglal új objektumokat.
+ * Egy példány nem szálbiztos, szálanként külön példányt kell használni; az
+ * opcionális eredmény gyorsítótár viszont megosztható a példányok között.
+ */
+class NutritionEngine {
+    private final NutritionDatabase database;
+    private final NutritionResultCache cache;
+
+    // Tápanyagonkénti összegek munkaterülete
+    private final double[] totals = new double[NutritionInfo.NUTRIENT_COUNT];
+
+    // A recept összetevőinek munkaterülete az adatbázis lekérdezéshez
+    private String[] names = new String[16];
+    private double[] weights = new double[16];
+    private NutritionInfo[] infos = new NutritionInfo[16];
+    private long[] versions = new long[16];
+    private int[] order = new int[16];
+
+    // Az utolsó számítás a gyorsítótárból jött-e (a JFR eseményhez)
+    private boolean lastCacheHit;
+
+    public NutritionEngine(NutritionDatabase database) {
+        this(database, null);
+    }
+
+    /**
+     * Motor eredmény gyorsítótárral (lehet null)
+     */
+    public NutritionEngine(NutritionDatabase database, NutritionResultCache cache) {
+        this.database = database;
+        this.cache = cache;
+    }
+
+    /**
+     * Egy recept 100g-ra vonatkoztatott tápértékének kiszámítása a result pufferbe.
+     * Az összetevők tápértékét egyetlen konzisztens adatbázis állapotból olvassuk,
+     * így egy párhuzamos módosítás nem eredményezhet vegyes eredményt.
+     * Visszatérési érték a recept teljes (sütés előtti) súlya grammban.
+     *
+     * @throws IllegalArgumentException ha egy összetevő nem található az adatbázisban,
+     *                                  vagy a recept összsúlya nem pozitív
+     */
+    public double calculateTotalNutrition(Recipe recipe, NutritionInfo result) {
+        return calculateTotalNutrition(recipe, 0, result, null);
+    }
+
+    /**
+     * Mint a fenti; ha a baked puffer nem null, a bakedWeight sütés utáni súllyal
+     * számolt 100g-os tápérték is kiszámításra kerül bele. Gyorsítótár esetén a már kiszámolt
+     * (azonos összetevőjű, súlyú és adatbázis változatú) receptek eredményét adjuk vissza.
+     *
+     * @throws IllegalArgumentException ha egy összetevő nem található, a recept összsúlya
+     *                                  nem pozitív, vagy a sütés utáni súly érvénytelen
+     */
+    public double calculateTotalNutrition(Recipe recipe, double bakedWeight,
+                                          NutritionInfo raw, NutritionInfo baked) {
+        OperationMetrics metrics = Metrics.RECIPE_CALCULATION;
+        RecipeEvaluationEvent event = new RecipeEvaluationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            double totalWeight = calculate(recipe, bakedWeight, raw, baked);
+            metrics.record(start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.ingredientCount = recipe.ingredientsView().size();
+                event.totalWeight = totalWeight;
+                event.bakedWeight = baked != null ? bakedWeight : 0;
+                event.cacheHit = lastCacheHit;
+                event.commit();
+            }
+            return totalWeight;
+        } catch (RuntimeException e) {
+            metrics.recordError(start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.ingredientCount = recipe.ingredientsView().size();
+                event.bakedWeight = baked != null ? bakedWeight : 0;
+                event.failure = e.getMessage();
+                event.commit();
+            }
+            throw e;
+        }
+    }
+
+    private double calculate(Recipe recipe, double bakedWeight, NutritionInfo raw, NutritionInfo baked) {
+        Map<String, Double> ingredients = recipe.ingredientsView();
+        int count = ingredients.size();
+        if (count > names.length) {
+            int capacity = Math.max(count, names.length * 2);
+            names = new String[capacity];
+            weights = new double[capacity];
+            infos = new NutritionInfo[capacity];
+            versions = new long[capacity];
+            order = new int[capacity];
+        }
+        int i = 0;
+        for (Map.Entry<String, Double> entry : ingredients.entrySet()) {
+            names[i] = entry.getKey();
+            weights[i] = entry.getValue();
+            i++;
+        }
+
+        lastCacheHit = false;
+        try {
+            database.getNutritionInfo(names, count, infos, cache != null ? versions : null);
+            double totalWeight = 0;
+            for (i = 0; i < count; i++) {
+                if (infos[i] == null) {
+                    throw new IllegalArgumentException(
+                            "Nem található tápérték információ a következő összetevőhöz: " + names[i]);
+                }
+                totalWeight += weights[i];
+            }
+            if (baked != null && totalWeight > 0) {
+                // Érvénytelen sütés utáni súly akkor is hiba, ha az eredmény a gyorsítótárban van
+                correctionFactor(totalWeight, bakedWeight);
+            }
+
+            NutritionResultCache.Key key = null;
+            if (cache != null) {
+                key = key(count, baked != null ? bakedWeight : 0);
+                NutritionResultCache.Result cached = cache.get(key);
+                if (cached != null) {
+                    lastCacheHit = true;
+                    copy(cached.raw, raw);
+                    if (cached.baked != null) {
+                        copy(cached.baked, baked);
+                    }
+                    return cached.totalWeight;
+                }
+            }
+
+            clearTotals();
+            for (i = 0; i < count; i++) {
+                accumulate(infos[i], weights[i]);
+            }
+            finish(totalWeight, raw);
+            if (baked != null) {
+                applyBakingCorrection(raw, totalWeight, bakedWeight, baked);
+            }
+
+            if (cache != null) {
+                cache.put(key, new NutritionResultCache.Result(raw, baked, totalWeight));
+            }
+            return totalWeight;
+        } finally {
+            // Ne tartsunk életben hivatkozásokat a munkaterületen
+            Arrays.fill(names, 0, count, null);
+            Arrays.fill(infos, 0, count, null);
+        }
+    }
+
+    /**
+     * Már feloldott összetevők 100g-ra vonatkoztatott tápértékének kiszámítása a result pufferbe.
+     * Visszatérési érték az összetevők teljes súlya grammban.
+     */
+    public double calculateTotalNutrition(List<Ingredient> ingredients, NutritionInfo result) {
+        clearTotals();
+        double totalWeight = 0;
+
+        for (int i = 0, size = ingredients.size(); i < size; i++) {
+            Ingredient ingredient = ingredients.get(i);
+            accumulate(ingredient.getNutritionInfo(), ingredient.getWeight());
+            totalWeight += ingredient.getWeight();
+        }
+
+        return finish(totalWeight, result);
+    }
+
+    /**
+     * Sütés utáni tápérték kiszámítása a baked pufferbe a sütés előtti 100g-os értékekből
+     */
+    public static void applyBakingCorrection(NutritionInfo raw, double rawWeight, double bakedWeight,
+                                             NutritionInfo baked) {
+        applyCorrectionFactor(raw, correctionFactor(rawWeight, bakedWeight), baked);
+    }
+
+    /**
+     * Korrekciós faktor alkalmazása a tápértékekre (a result lehet azonos az original-lal)
+     */
+    public static void applyCorrectionFactor(NutritionInfo original, double factor, NutritionInfo result) {
+        // A víztartalom kivétel lehet, de mivel nem számoljuk külön, így minden értékre alkalmazzuk
+        for (int n = 0; n < NutritionInfo.NUTRIENT_COUNT; n++) {
+            result.setValue(n, original.getValue(n) * factor);
+        }
+    }
+
+    /**
+     * Korrekciós faktor (sütés előtti / sütés utáni súly)
+     *
+     * @throws IllegalArgumentException ha a sütés utáni súly nem pozitív vagy nagyobb a sütés előttinél
+     */
+    public static double correctionFactor(double rawWeight, double bakedWeight) {
+        if (bakedWeight <= 0 || bakedWeight > rawWeight) {
+            throw new IllegalArgumentException(
+                    "Érvénytelen súly! A sütés utáni súly nem lehet nagyobb, mint a sütés előtti.");
+        }
+        return rawWeight / bakedWeight;
+    }
+
+    /**
+     * Kanonikus gyorsítótár kulcs: az összetevők név szerint rendezve
+     */
+    private NutritionResultCache.Key key(int count, double bakedWeight) {
+        // Beszúrásos rendezés az indexeken (a receptek jellemzően kevés összetevősek)
+        for (int i = 0; i < count; i++) {
+            int current = i;
+            int j = i - 1;
+            while (j >= 0 && names[order[j]].compareTo(names[current]) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+
+        String[] keyNames = new String[count];
+        long[] keyWeights = new long[count];
+        long[] keyVersions = new long[count];
+        for (int i = 0; i < count; i++) {
+            int index = order[i];
+            keyNames[i] = names[index];
+            keyWeights[i] = Double.doubleToLongBits(weights[index]);
+            keyVersions[i] = versions[index];
+        }
+        return new NutritionResultCache.Key(keyNames, keyWeights, keyVersions, Double.doubleToLongBits(bakedWeight));
+    }
+
+    private static void copy(double[] values, NutritionInfo result) {
+        for (int n = 0; n < values.length; n++) {
+            result.setValue(n, values[n]);
+        }
+    }
+
+    private void clearTotals() {
+        for (int n = 0; n < totals.length; n++) {
+            totals[n] = 0.0;
+        }
+    }
+
+    private void accumulate(NutritionInfo info, double weight) {
+        double factor = weight / 100.0;
+        for (int n = 0; n < totals.length; n++) {
+            totals[n] += info.getValue(n) * factor;
+        }
+    }
+
+    private double finish(double totalWeight, NutritionInfo result) {
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("A recept összsúlya nem lehet nulla.");
+        }
+
+        // Átszámítás 100g-ra
+        double factor = 100.0 / totalWeight;
+        for (int n = 0; n < totals.length; n++) {
+            result.setValue(n, totals[n] * factor);
+        }
+        return totalWeight;
+    }
+}
@@ -1,80 +1,165 @@
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
- * Tápérték információ osztály, amely tárolja egy összetevő tápértékeit
+ * Tápérték információ osztály, amely tárolja egy összetevő tápértékeit.
+ * Az értékek egy rögzített elrendezésű double tömbben vannak, minden tápanyag
+ * stabil indexen, így a számítások index alapján, boxing nélkül érhetik el őket.
  */
 class NutritionInfo implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
-    // Tápértékek tárolása
-    private Map<String, Double> values;
+    // Tápanyag indexek (a sorrend megegyezik a getAllNutrients() sorrendjével)
 
-    public NutritionInfo() {
-        values = new HashMap<>();
-        initializeDefaultValues();
-    }
+    // Alapvető tápértékek
+    static final int ENERGY = 0;               // kJ
+    static final int ENERGY_KCAL = 1;          // kcal
+    static final int FAT = 2;                  // g
+    static final int SATURATED_FAT = 3;        // g
+    static final int MONOUNSATURATED_FAT = 4;  // g
+    static final int POLYUNSATURATED_FAT = 5;  // g
+    static final int TRANS_FAT = 6;            // g
+    static final int CHOLESTEROL = 7;          // mg
+    static final int CARBS = 8;                // g
+    static final int SUGAR = 9;                // g
+    static final int STARCH = 10;              // g
+    static final int FIBER = 11;               // g
+    static final int PROTEIN = 12;             // g
+    static final int SALT = 13;                // g
+    static final int SODIUM = 14;              // mg
+
+    // Vitaminok
+    static final int VITAMIN_A = 15;           // µg
+    static final int VITAMIN_C = 16;           // mg
+    static final int VITAMIN_D = 17;           // µg
+    static final int VITAMIN_E = 18;           // mg
+    static final int VITAMIN_K = 19;           // µg
+    static final int VITAMIN_B1 = 20;          // mg
+    static final int VITAMIN_B2 = 21;          // mg
+    static final int VITAMIN_B3 = 22;          // mg
+    static final int VITAMIN_B6 = 23;          // mg
+    static final int VITAMIN_B12 = 24;         // µg
+    static final int FOLATE = 25;              // µg
+
+    // Ásványi anyagok
+    static final int CALCIUM = 26;             // mg
+    static final int IRON = 27;                // mg
+    static final int MAGNESIUM = 28;           // mg
+    static final int PHOSPHORUS = 29;          // mg
+    static final int POTASSIUM = 30;           // mg
+    static final int ZINC = 31;                // mg
+
+    // Tápanyag nevek index szerint
+    private static final String[] NUTRIENTS = {
+            "energy", "energyKcal", "fat", "saturatedFat", "monounsaturatedFat",
+            "polyunsaturatedFat", "transFat", "cholesterol", "carbs", "sugar",
+            "starch", "fiber", "protein", "salt", "sodium",
+            "vitaminA", "vitaminC", "vitaminD", "vitaminE", "vitaminK",
+            "vitaminB1", "vitaminB2", "vitaminB3", "vitaminB6", "vitaminB12", "folate",
+            "calcium", "iron", "magnesium", "phosphorus", "potassium", "zinc"
+    };
+
+    // Megjelenítési nevek mértékegységgel, index szerint (a NUTRIENTS sorrendjében)
+    private static final String[] DISPLAY_NAMES = {
+            "Energia (kJ)", "Energia (kcal)", "Zsír (g)", "- ebből telített zsírsav (g)",
+            "- ebből egyszeresen telítetlen (g)", "- ebből többszörösen telítetlen (g)",
+            "- ebből transz-zsír (g)", "Koleszterin (mg)", "Szénhidrát (g)", "- ebből cukor (g)",
+            "- ebből keményítő (g)", "Rost (g)", "Fehérje (g)", "Só (g)", "Nátrium (mg)",
+            "A-vitamin (µg)", "C-vitamin (mg)", "D-vitamin (µg)", "E-vitamin (mg)", "K-vitamin (µg)",
+            "B1-vitamin (mg)", "B2-vitamin (mg)", "B3-vitamin (mg)", "B6-vitamin (mg)",
+            "B12-vitamin (µg)", "Folát (µg)",
+            "Kalcium (mg)", "Vas (mg)", "Magnézium (mg)", "Foszfor (mg)", "Kálium (mg)", "Cink (mg)"
+    };
+
+    /** A tápanyagok száma (a belső tömb hossza) */
+    static final int NUTRIENT_COUNT = NUTRIENTS.length;
+
+    // Név -> index leképezés a szöveges API-hoz
+    private static final Map<String, Integer> INDEX_BY_NAME = new HashMap<>();
 
-    private void initializeDefaultValues() {
-        // Alapvető tápértékek inicializálása 0-ra
-        for (String nutrient : getAllNutrients()) {
-            values.put(nutrient, 0.0);
+    static {
+        for (int i = 0; i < NUTRIENTS.length; i++) {
+            INDEX_BY_NAME.put(NUTRIENTS[i], i);
         }
     }
 
+    // Tápértékek tárolása (alapértelmezetten minden érték 0)
+    private final double[] values;
+
+    public NutritionInfo() {
+        values = new double[NUTRIENT_COUNT];
+    }
+
     public static List<String> getAllNutrients() {
-        List<String> nutrients = new ArrayList<>();
-
-        // Alapvető tápértékek
-        nutrients.add("energy");        // kJ
-        nutrients.add("energyKcal");    // kcal
-        nutrients.add("fat");           // g
-        nutrients.add("saturatedFat");  // g
-        nutrients.add("monounsaturatedFat"); // g
-        nutrients.add("polyunsaturatedFat"); // g
-        nutrients.add("transFat");      // g
-        nutrients.add("cholesterol");   // mg
-        nutrients.add("carbs");         // g
-        nutrients.add("sugar");         // g
-        nutrients.add("starch");        // g
-        nutrients.add("fiber");         // g
-        nutrients.add("protein");       // g
-        nutrients.add("salt");          // g
-        nutrients.add("sodium");        // mg
-
-        // Vitaminok
-        nutrients.add("vitaminA");      // µg
-        nutrients.add("vitaminC");      // mg
-        nutrients.add("vitaminD");      // µg
-        nutrients.add("vitaminE");      // mg
-        nutrients.add("vitaminK");      // µg
-        nutrients.add("vitaminB1");     // mg
-        nutrients.add("vitaminB2");     // mg
-        nutrients.add("vitaminB3");     // mg
-        nutrients.add("vitaminB6");     // mg
-        nutrients.add("vitaminB12");    // µg
-        nutrients.add("folate");        // µg
-
-        // Ásványi anyagok
-        nutrients.add("calcium");       // mg
-        nutrients.add("iron");          // mg
-        nutrients.add("magnesium");     // mg
-        nutrients.add("phosphorus");    // mg
-        nutrients.add("potassium");     // mg
-        nutrients.add("zinc");          // mg
-
-        return nutrients;
+        return new ArrayList<>(Arrays.asList(NUTRIENTS));
+    }
+
+    /**
+     * Tápanyag nevének lekérése index alapján
+     */
+    static String getNutrientName(int index) {
+        return NUTRIENTS[index];
+    }
+
+    /**
+     * Tápanyag megjelenítési neve mértékegységgel index alapján
+     */
+    static String getDisplayName(int index) {
+        return DISPLAY_NAMES[index];
+    }
+
+    /**
+     * Tápanyag megjelenítési neve; ismeretlen tápanyagnál maga a név
+     */
+    static String getDisplayName(String nutrient) {
+        int index = indexOf(nutrient);
+        return index >= 0 ? DISPLAY_NAMES[index] : nutrient;
+    }
+
+    /**
+     * Tápanyag indexének lekérése név alapján, ismeretlen névre -1
+     */
+    static int indexOf(String nutrient) {
+        Integer index = INDEX_BY_NAME.get(nutrient);
+        return index != null ? index : -1;
     }
 
     public double getValue(String nutrient) {
-        return values.getOrDefault(nutrient, 0.0);
+        int index = indexOf(nutrient);
+        return index >= 0 ? values[index] : 0.0;
     }
 
     public void setValue(String nutrient, double value) {
-        values.put(nutrient, value);
+        int index = indexOf(nutrient);
+        if (index < 0) {
+            throw new IllegalArgumentException("Ismeretlen tápanyag: " + nutrient);
+        }
+        values[index] = value;
     }
-}
 
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    public void setValue(int index, double value) {
+        values[index] = value;
+    }
+
+    /**
+     * Minden érték nullázása (újrahasznosított eredmény puffereknél)
+     */
+    public void clear() {
+        Arrays.fill(values, 0.0);
+    }
+
+    /**
+     * Értékek átmásolása egy másik példányból
+     */
+    public void copyFrom(NutritionInfo other) {
+        System.arraycopy(other.values, 0, values, 0, NUTRIENT_COUNT);
+    }
+}
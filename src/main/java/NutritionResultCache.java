@@ -0,0 +1,266 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recept számítási eredmények gyorsítótára, tartalom alapú kulccsal.
+ *
+ * A kulcs a recept összetevőinek név szerint rendezett (név, súly) párjai, az
+ * egyes összetevők adatbázisbeli változat sorszáma és a sütés utáni súly; a
+ * recept neve és az összetevők sorrendje nem számít. Korlátos méretű LRU tár.
+ *
+ * A tár a kulcs hash szerint sávokra (stripe) oszlik, mindegyik saját zárral, LRU
+ * sorrenddel és a méretkorlát rá eső részével, így a párhuzamos szálak (pl. a kötegelt
+ * kalkulátor fork-join munkásai) csak azonos sávba eső kulcsoknál várnak egymásra.
+ * Egy összetevő cseréjekor vagy törlésekor az azt használó bejegyzéseket azonnal
+ * eldobjuk; mivel a változat a kulcs része, egy elavult eredmény akkor sem adható
+ * vissza, ha a számítás a módosítással párhuzamosan futott. Szálbiztos.
+ */
+class NutritionResultCache implements NutritionDatabase.Listener {
+    private final NutritionDatabase database;
+    // Kettő hatvány darab sáv
+    private final Stripe[] stripes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Egy recept kanonikus kulcsa
+     */
+    static final class Key {
+        final String[] names;
+        final long[] weights;
+        final long[] versions;
+        final long bakedWeight;
+        private final int hash;
+
+        /**
+         * A tömböknek név szerint rendezettnek kell lenniük; a kulcs átveszi őket
+         */
+        Key(String[] names, long[] weights, long[] versions, long bakedWeight) {
+            this.names = names;
+            this.weights = weights;
+            this.versions = versions;
+            this.bakedWeight = bakedWeight;
+
+            // 64 bites tartalom hash (FNV-1a jellegű keverés)
+            long h = 0xCBF29CE484222325L;
+            for (int i = 0; i < names.length; i++) {
+                h = (h ^ names[i].hashCode()) * 0x100000001B3L;
+                h = (h ^ weights[i]) * 0x100000001B3L;
+                h = (h ^ versions[i]) * 0x100000001B3L;
+            }
+            h = (h ^ bakedWeight) * 0x100000001B3L;
+            this.hash = (int) (h ^ (h >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash
+                    && bakedWeight == other.bakedWeight
+                    && Arrays.equals(weights, other.weights)
+                    && Arrays.equals(versions, other.versions)
+                    && Arrays.equals(names, other.names);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Tárolt eredmény: 100g-os nyers (és opcionálisan sütés utáni) értékek, teljes súly
+     */
+    static final class Result {
+        final double[] raw;
+        final double[] baked;
+        final double totalWeight;
+
+        Result(NutritionInfo raw, NutritionInfo baked, double totalWeight) {
+            this.raw = values(raw);
+            this.baked = baked != null ? values(baked) : null;
+            this.totalWeight = totalWeight;
+        }
+
+        private static double[] values(NutritionInfo info) {
+            double[] values = new double[NutritionInfo.NUTRIENT_COUNT];
+            for (int n = 0; n < values.length; n++) {
+                values[n] = info.getValue(n);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Egyetlen sávos (egyszerre egy szálon használt) gyorsítótár
+     */
+    NutritionResultCache(NutritionDatabase database, int maxEntries) {
+        this(database, maxEntries, 1);
+    }
+
+    /**
+     * @param stripes a sávok száma (lefelé kerekítve kettő hatványra, legfeljebb maxEntries); párhuzamos
+     *                használatnál érdemes a szálak számának többszörösére választani
+     * @throws IllegalArgumentException ha a méret vagy a sávok száma nem pozitív
+     */
+    NutritionResultCache(NutritionDatabase database, int maxEntries, int stripes) {
+        if (maxEntries <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException(
+                    "Érvénytelen gyorsítótár méret: " + maxEntries + " bejegyzés, " + stripes + " sáv");
+        }
+        this.database = database;
+        int count = Integer.highestOneBit(Math.min(stripes, maxEntries));
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            // A méretkorlát egyenletesen oszlik el, a maradék az első sávokra jut
+            this.stripes[i] = new Stripe(maxEntries / count + (i < maxEntries % count ? 1 : 0));
+        }
+        database.addListener(this);
+    }
+
+    /**
+     * Egy sáv: korlátos LRU tár és az összetevő szerinti fordított index, a saját
+     * monitorával védve
+     */
+    private final class Stripe {
+        final Map<Key, Result> entries;
+        // összetevő -> az őt használó kulcsok (pontos érvénytelenítéshez)
+        final Map<String, Set<Key>> keysByIngredient = new HashMap<>();
+
+        Stripe(int maxEntries) {
+            this.entries = new LinkedHashMap<Key, Result>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Result> eldest) {
+                    if (size() > maxEntries) {
+                        unindex(eldest.getKey());
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        // Csak a sáv zárolása alatt hívható
+        void unindex(Key key) {
+            for (String name : key.names) {
+                Set<Key> keys = keysByIngredient.get(name);
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        keysByIngredient.remove(name);
+                    }
+                }
+            }
+        }
+    }
+
+    private Stripe stripe(Key key) {
+        // A hash felső bitjeit is bekeverjük, a sáv index az alsó bitekből jön
+        int hash = key.hash ^ (key.hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    /**
+     * Tárolt eredmény; null, ha nincs
+     */
+    Result get(Key key) {
+        Stripe stripe = stripe(key);
+        Result result;
+        synchronized (stripe) {
+            result = stripe.entries.get(key);
+        }
+        if (result != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Eredmény tárolása; ha közben valamelyik összetevő megváltozott, nem tároljuk
+     */
+    void put(Key key, Result result) {
+        for (int i = 0; i < key.names.length; i++) {
+            if (database.getIngredientVersion(key.names[i]) != key.versions[i]) {
+                return;
+            }
+        }
+        Stripe stripe = stripe(key);
+        synchronized (stripe) {
+            if (stripe.entries.put(key, result) == null) {
+                for (String name : key.names) {
+                    stripe.keysByIngredient.computeIfAbsent(name, k -> new HashSet<>()).add(key);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void ingredientChanged(String name, NutritionInfo info) {
+        invalidate(name);
+    }
+
+    @Override
+    public void ingredientRemoved(String name) {
+        invalidate(name);
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    long getInvalidations() {
+        return invalidations.get();
+    }
+
+    private void invalidate(String name) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Set<Key> keys = stripe.keysByIngredient.remove(name);
+                if (keys == null) {
+                    continue;
+                }
+                for (Key key : keys) {
+                    if (stripe.entries.remove(key) != null) {
+                        stripe.unindex(key);
+                        invalidations.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+}
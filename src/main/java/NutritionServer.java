@@ -0,0 +1,415 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Beágyazott HTTP szolgáltatás a tápérték számításhoz (a JDK HTTP szerverével).
+ *
+ * Végpontok (JSON kérés és válasz):
+ *   POST /calculate          {"ingredients": {"név": gramm, ...}, "bakedWeight": gramm}
+ *   GET  /ingredients?name=  egy összetevő tápértéke
+ *   GET  /ingredients?q=     összetevő keresés (ékezet nélkül, elgépeléssel is)
+ *   POST /ingredients        {"name": "...", "nutrition": {...}} vagy {"name": "...", "components": {...}}
+ *
+ * A kéréseket JDK 21-től virtuális szálak, korábban egy korlátos szálkészlet
+ * szolgálja ki. Túlterheléskor (ha az egyidejű kérések száma eléri a korlátot)
+ * azonnal 503 választ adunk Retry-After fejléccel. A szálkészlet várakozási sora
+ * is korlátos: ha megtelik, az elfogadó szál a kérést feldolgozás nélkül, azonnal
+ * 503 válasszal zárja le, így a végpontok sosem futnak az elfogadó szálon.
+ *
+ * Használat:
+ *   java NutritionServer [--port <n>] [--database <fájl>] [--max-concurrent <n>] [--threads <n>]
+ */
+class NutritionServer {
+    static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int SEARCH_LIMIT = 20;
+    private static final int RESULT_CACHE_SIZE = 10_000;
+
+    private final NutritionDatabase database;
+    private final IngredientSearchIndex searchIndex;
+    private final NutritionResultCache resultCache;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    // Szabad munkaterületek (motor és eredmény pufferek); kérésenként kölcsönözzük,
+    // így számuk legfeljebb az egyidejű kérések száma, virtuális szálakkal is
+    private final ConcurrentLinkedQueue<Worker> workers = new ConcurrentLinkedQueue<>();
+
+    // Igaz, ha a kérést a megtelt szálkészlet helyett az elfogadó szál kapta meg
+    private static final ThreadLocal<Boolean> OVERLOADED = ThreadLocal.withInitial(() -> false);
+
+    private static final class Worker {
+        final NutritionEngine engine;
+        final NutritionInfo raw = new NutritionInfo();
+        final NutritionInfo baked = new NutritionInfo();
+
+        Worker(NutritionDatabase database, NutritionResultCache cache) {
+            engine = new NutritionEngine(database, cache);
+        }
+    }
+
+    /**
+     * @param threads       a szálkészlet mérete, ha nincsenek virtuális szálak
+     * @param maxConcurrent az egyszerre kiszolgált kérések legnagyobb száma
+     */
+    NutritionServer(NutritionDatabase database, int port, int threads, int maxConcurrent) throws IOException {
+        this.database = database;
+        this.searchIndex = new IngredientSearchIndex(database);
+        this.resultCache = new NutritionResultCache(database, RESULT_CACHE_SIZE);
+        this.permits = new Semaphore(maxConcurrent);
+        this.executor = createExecutor(threads, maxConcurrent);
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/calculate", limited(this::calculate));
+        server.createContext("/ingredients", limited(this::ingredients));
+        server.setExecutor(executor);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    long getRequestCount() {
+        return requests.get();
+    }
+
+    long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Virtuális szálas végrehajtó, ha a futtató JDK támogatja (21+); egyébként korlátos
+     * szálkészlet korlátos várakozási sorral. A visszautasított kérést az elfogadó szál
+     * csak lezárja: túlterhelés jelzéssel fut, így a végpont helyett 503 választ kap.
+     */
+    private static ExecutorService createExecutor(int threads, int queueCapacity) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), (task, pool) -> {
+                        OVERLOADED.set(true);
+                        try {
+                            task.run();
+                        } finally {
+                            OVERLOADED.remove();
+                        }
+                    });
+        }
+    }
+
+    // --- Végpontok ---
+
+    private interface Endpoint {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    /**
+     * Terheléskorlát: ha nincs szabad hely, azonnal 503; a hibákat JSON válaszként adjuk vissza
+     */
+    private HttpHandler limited(Endpoint endpoint) {
+        return exchange -> {
+            requests.incrementAndGet();
+            if (OVERLOADED.get() || !permits.tryAcquire()) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "A szolgáltatás túlterhelt, próbáld újra később.");
+                return;
+            }
+            try {
+                endpoint.handle(exchange);
+            } catch (IllegalArgumentException e) {
+                fail(exchange, 400, e.getMessage());
+            } catch (IOException e) {
+                fail(exchange, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                fail(exchange, 500, "Belső hiba: " + e.getMessage());
+            } finally {
+                permits.release();
+                exchange.close();
+            }
+        };
+    }
+
+    private void calculate(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Csak POST kérés támogatott.");
+            return;
+        }
+        JSONObject request = readJson(exchange);
+
+        Recipe recipe = new Recipe(request.get("name") != null ? request.get("name").toString() : "");
+        Object ingredients = request.get("ingredients");
+        if (!(ingredients instanceof Map) || ((Map<?, ?>) ingredients).isEmpty()) {
+            throw new IllegalArgumentException("Hiányzó \"ingredients\" objektum.");
+        }
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) ingredients).entrySet()) {
+            recipe.addIngredient(entry.getKey().toString(), number(entry.getValue(), entry.getKey().toString()));
+        }
+
+        Object bakedValue = request.get("bakedWeight");
+        double bakedWeight = bakedValue != null ? number(bakedValue, "bakedWeight") : 0;
+
+        StringBuilder json = new StringBuilder(2048);
+        Worker worker = borrowWorker();
+        try {
+            double totalWeight = worker.engine.calculateTotalNutrition(recipe, bakedWeight, worker.raw,
+                    bakedValue != null ? worker.baked : null);
+
+            json.append("{\"totalWeight\":").append(totalWeight);
+            if (bakedValue != null) {
+                json.append(",\"bakedWeight\":").append(bakedWeight);
+            }
+            json.append(",\"per100g\":");
+            appendValues(json, worker.raw);
+            if (bakedValue != null) {
+                json.append(",\"baked\":");
+                appendValues(json, worker.baked);
+            }
+            json.append('}');
+        } finally {
+            workers.offer(worker);
+        }
+        send(exchange, 200, json);
+    }
+
+    private Worker borrowWorker() {
+        Worker worker = workers.poll();
+        return worker != null ? worker : new Worker(database, resultCache);
+    }
+
+    private void ingredients(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            Map<String, String> query = query(exchange);
+            if (query.containsKey("name")) {
+                String name = query.get("name");
+                NutritionInfo info = database.getNutritionInfo(name);
+                if (info == null) {
+                    sendError(exchange, 404, "Nem található összetevő: " + name);
+                    return;
+                }
+                StringBuilder json = new StringBuilder(1024);
+                json.append("{\"name\":\"").append(JSONObject.escape(name)).append("\",\"nutrition\":");
+                appendValues(json, info);
+                json.append('}');
+                send(exchange, 200, json);
+            } else if (query.containsKey("q")) {
+                int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : SEARCH_LIMIT;
+                List<String> results = searchIndex.search(query.get("q"), Math.min(limit, 100));
+                StringBuilder json = new StringBuilder(256);
+                json.append("{\"results\":[");
+                for (int i = 0; i < results.size(); i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    json.append('"').append(JSONObject.escape(results.get(i))).append('"');
+                }
+                json.append("]}");
+                send(exchange, 200, json);
+            } else {
+                sendError(exchange, 400, "Hiányzó \"name\" vagy \"q\" paraméter.");
+            }
+        } else if ("POST".equals(exchange.getRequestMethod())) {
+            JSONObject request = readJson(exchange);
+            Object nameValue = request.get("name");
+            if (nameValue == null || nameValue.toString().trim().isEmpty()) {
+                throw new IllegalArgumentException("Hiányzó \"name\" mező.");
+            }
+            String name = nameValue.toString().trim();
+
+            Object components = request.get("components");
+            Object nutrition = request.get("nutrition");
+            if (components instanceof Map) {
+                Recipe recipe = new Recipe(name);
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) components).entrySet()) {
+                    recipe.addIngredient(entry.getKey().toString(),
+                            number(entry.getValue(), entry.getKey().toString()));
+                }
+                database.defineComposite(name, recipe);
+            } else if (nutrition instanceof Map) {
+                NutritionInfo info = new NutritionInfo();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) nutrition).entrySet()) {
+                    info.setValue(entry.getKey().toString(), number(entry.getValue(), entry.getKey().toString()));
+                }
+                database.addIngredient(name, info);
+            } else {
+                throw new IllegalArgumentException("Hiányzó \"nutrition\" vagy \"components\" objektum.");
+            }
+            send(exchange, 201, "{\"name\":\"" + JSONObject.escape(name) + "\"}");
+        } else {
+            sendError(exchange, 405, "Csak GET és POST kérés támogatott.");
+        }
+    }
+
+    // --- Segédfüggvények ---
+
+    private static JSONObject readJson(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                body.write(buffer, 0, read);
+                if (body.size() > MAX_BODY_BYTES) {
+                    throw new IllegalArgumentException("A kérés túl nagy.");
+                }
+            }
+        }
+        try {
+            Object parsed = new JSONParser().parse(body.toString(StandardCharsets.UTF_8.name()));
+            if (!(parsed instanceof JSONObject)) {
+                throw new IllegalArgumentException("A kérésnek JSON objektumnak kell lennie.");
+            }
+            return (JSONObject) parsed;
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Érvénytelen JSON kérés.");
+        }
+    }
+
+    private static double number(Object value, String field) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        throw new IllegalArgumentException("Érvénytelen szám: " + field);
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static void appendValues(StringBuilder json, NutritionInfo info) {
+        json.append('{');
+        for (int n = 0; n < NutritionInfo.NUTRIENT_COUNT; n++) {
+            if (n > 0) {
+                json.append(',');
+            }
+            json.append('"').append(NutritionInfo.getNutrientName(n)).append("\":").append(info.getValue(n));
+        }
+        json.append('}');
+    }
+
+    /**
+     * Hibaválasz egy végpont hibájára; ha a válasz fejléce már elment (pl. a törzs írása
+     * közben szakadt meg a kapcsolat), új választ nem küldhetünk, csak naplózunk
+     */
+    private static void fail(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            System.err.println("Hiba a válasz küldése közben (" + exchange.getRequestURI() + "): " + message);
+            return;
+        }
+        sendError(exchange, status, message);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\":\"" + JSONObject.escape(String.valueOf(message)) + "\"}");
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Használat: java NutritionServer [--port <n>] [--database <fájl>] "
+                + "[--max-concurrent <n>] [--threads <n>]");
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors() * 4;
+        int maxConcurrent = 256;
+        String databaseFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                printUsage();
+                System.exit(2);
+            }
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--database":
+                    databaseFile = args[++i];
+                    break;
+                case "--max-concurrent":
+                    maxConcurrent = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    printUsage();
+                    System.exit(2);
+            }
+        }
+
+        NutritionDatabase database = databaseFile != null
+                ? NutritionDatabase.open(Paths.get(databaseFile)) : new NutritionDatabase();
+        NutritionServer server = new NutritionServer(database, port, threads, maxConcurrent);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                server.executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        server.start();
+        System.err.println("A tápérték szolgáltatás fut: http://localhost:" + server.getPort() + "/");
+    }
+}
@@ -0,0 +1,270 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kétszintű gyorsítótár az OpenFoodFacts keresési válaszokhoz.
+ *
+ * A kulcs a normalizált keresőkifejezés és a lapméret. Az első szint egy
+ * memóriabeli LRU tár, a második egy könyvtár a lemezen, fájlonként egy
+ * válasszal (8 bájt tárolási időbélyeg + a nyers válasz). Mindkét szinten a
+ * beállított élettartam (TTL) után a bejegyzés érvénytelen; a lemez szint a
+ * méretkorlát túllépésekor a legrégebben használt fájlokat törli.
+ */
+class OpenFoodFactsCache {
+    private final int memoryEntries;
+    private final Path directory;
+    private final long ttlMillis;
+    private final long maxDiskBytes;
+
+    private final Map<String, CachedResponse> memory;
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static final class CachedResponse {
+        final byte[] body;
+        final long storedAt;
+
+        CachedResponse(byte[] body, long storedAt) {
+            this.body = body;
+            this.storedAt = storedAt;
+        }
+    }
+
+    /**
+     * @param memoryEntries a memóriában tartott válaszok legnagyobb száma
+     * @param directory     a lemez szint könyvtára (null esetén, vagy ha nem hozható létre, csak memória szint)
+     * @param ttlMillis     a bejegyzések élettartama ezredmásodpercben
+     * @param maxDiskBytes  a lemez szint méretkorlátja bájtban
+     */
+    OpenFoodFactsCache(int memoryEntries, Path directory, long ttlMillis, long maxDiskBytes) {
+        this.memoryEntries = memoryEntries;
+        this.ttlMillis = ttlMillis;
+        this.maxDiskBytes = maxDiskBytes;
+        this.memory = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > OpenFoodFactsCache.this.memoryEntries;
+            }
+        };
+
+        this.directory = directory != null ? openDirectory(directory) : null;
+    }
+
+    private Path openDirectory(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            long total = 0;
+            for (Path file : listCacheFiles(directory)) {
+                total += Files.size(file);
+            }
+            diskBytes.set(total);
+            return directory;
+        } catch (IOException e) {
+            // A lemez szint hibája nem akadályozhatja a keresést
+            System.err.println("A keresési gyorsítótár könyvtára nem használható: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Gyorsítótár kulcs: kisbetűs, NFC normalizált, egyszeres szóközökkel, lapmérettel
+     */
+    static String key(String query, int pageSize) {
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFC)
+                .trim()
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ");
+        return normalized + "|" + pageSize;
+    }
+
+    /**
+     * Tárolt válasz lekérése; null, ha nincs érvényes bejegyzés
+     */
+    byte[] get(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            CachedResponse entry = memory.get(key);
+            if (entry != null) {
+                if (now - entry.storedAt <= ttlMillis) {
+                    memoryHits.incrementAndGet();
+                    return entry.body;
+                }
+                memory.remove(key);
+            }
+        }
+
+        if (directory != null) {
+            CachedResponse entry = readFromDisk(key, now);
+            if (entry != null) {
+                diskHits.incrementAndGet();
+                synchronized (memory) {
+                    memory.put(key, entry);
+                }
+                return entry.body;
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Válasz tárolása mindkét szinten
+     */
+    void put(String key, byte[] body) {
+        CachedResponse entry = new CachedResponse(body, System.currentTimeMillis());
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        if (directory != null) {
+            try {
+                writeToDisk(key, entry);
+                if (diskBytes.get() > maxDiskBytes) {
+                    evictFromDisk();
+                }
+            } catch (IOException e) {
+                // A lemez szint hibája nem akadályozhatja a keresést
+                System.err.println("Nem sikerült a válasz gyorsítótárazása: " + e.getMessage());
+            }
+        }
+    }
+
+    long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    long getDiskHits() {
+        return diskHits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    long getDiskBytes() {
+        return diskBytes.get();
+    }
+
+    private CachedResponse readFromDisk(String key, long now) {
+        Path file = fileFor(key);
+        try {
+            byte[] content = Files.readAllBytes(file);
+            if (content.length < 8) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            long storedAt = buffer.getLong();
+            if (now - storedAt > ttlMillis) {
+                delete(file);
+                return null;
+            }
+            byte[] body = new byte[buffer.remaining()];
+            buffer.get(body);
+
+            // Az utolsó hozzáférés ideje az LRU kilakoltatáshoz
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+            return new CachedResponse(body, storedAt);
+        } catch (IOException e) {
+            // Hiányzó vagy olvashatatlan fájl: gyorsítótár tévesztés
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, CachedResponse entry) throws IOException {
+        Path file = fileFor(key);
+        Path temp = Files.createTempFile(directory, "off", ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(8 + entry.body.length);
+        buffer.putLong(entry.storedAt);
+        buffer.put(entry.body);
+        Files.write(temp, buffer.array());
+
+        long previous = Files.exists(file) ? Files.size(file) : 0;
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        diskBytes.addAndGet(buffer.capacity() - previous);
+    }
+
+    /**
+     * A legrégebben használt fájlok törlése, amíg a lemez szint a korlát 90%-a alá nem kerül
+     */
+    private synchronized void evictFromDisk() throws IOException {
+        if (diskBytes.get() <= maxDiskBytes) {
+            return;
+        }
+        List<Path> files = listCacheFiles(directory);
+        files.sort(Comparator.comparingLong(OpenFoodFactsCache::lastModified));
+        long target = maxDiskBytes * 9 / 10;
+        for (Path file : files) {
+            if (diskBytes.get() <= target) {
+                break;
+            }
+            delete(file);
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            long size = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+                diskBytes.addAndGet(-size);
+            }
+        } catch (IOException e) {
+            // Egy másik szál már törölte
+        }
+    }
+
+    private static List<Path> listCacheFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.cache")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private Path fileFor(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + 6);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return directory.resolve(name.append(".cache").toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 nem érhető el", e);
+        }
+    }
+}
@@ -0,0 +1,384 @@
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Aszinkron OpenFoodFacts keresési kliens, opcionális válasz gyorsítótárral.
+ *
+ * Minden példány egyetlen, megosztott HttpClient-et használ (HTTP/2, keep-alive
+ * kapcsolat újrahasznosítás), explicit kapcsolódási időkorláttal és a teljes
+ * válaszra (a törzs letöltésére is) vonatkozó határidővel, így egy beragadt
+ * kapcsolat nem blokkolhatja a hívót a végtelenségig.
+ * A válaszokat az OpenFoodFactsStreamParser folyamatosan dolgozza fel; gyorsítótár
+ * nélkül közvetlenül a hálózati folyamból, DOM felépítése nélkül.
+ */
+class OpenFoodFactsClient {
+    static final String DEFAULT_BASE_URL = "https://world.openfoodfacts.org";
+
+    static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(20);
+
+    private static final HttpClient SHARED_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    // A hálózati folyamból olvasó (blokkoló) feldolgozás saját szálakon fut, nem a
+    // közös ForkJoinPool-on, amelyet pl. a BatchCalculator parallelStream-je is használ
+    private static final int PARSE_THREADS = 4;
+    private static final ExecutorService PARSE_EXECUTOR = createParseExecutor();
+    // Határidő figyelő: lejáratkor lezárja a beragadt válasz folyamot
+    private static final ScheduledExecutorService DEADLINES = createDeadlineTimer();
+
+    private final String baseUrl;
+    private final OpenFoodFactsCache cache;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+
+    /**
+     * @param baseUrl a szolgáltatás címe (tesztekhez helyi szerverre állítható)
+     * @param cache   válasz gyorsítótár (lehet null)
+     */
+    OpenFoodFactsClient(String baseUrl, OpenFoodFactsCache cache) {
+        this(baseUrl, cache, SHARED_CLIENT);
+    }
+
+    OpenFoodFactsClient(String baseUrl, OpenFoodFactsCache cache, HttpClient httpClient) {
+        this(baseUrl, cache, httpClient, REQUEST_TIMEOUT);
+    }
+
+    /**
+     * @param requestTimeout egy kérés teljes határideje, a válasz törzsével együtt
+     */
+    OpenFoodFactsClient(String baseUrl, OpenFoodFactsCache cache, HttpClient httpClient, Duration requestTimeout) {
+        this.baseUrl = baseUrl;
+        this.cache = cache;
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Termékek keresése (blokkoló); az ismételt kereséseket a gyorsítótárból szolgáljuk ki
+     */
+    List<FoodProduct> search(String query, int pageSize) throws IOException {
+        try {
+            return searchAsync(query, pageSize).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof TimeoutException) {
+                throw new HttpTimeoutException("Az OpenFoodFacts nem válaszolt időben: " + query);
+            } else if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException("Hiba a keresés során: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Termékek keresése aszinkron módon
+     */
+    CompletableFuture<List<FoodProduct>> searchAsync(String query, int pageSize) {
+        OperationMetrics metrics = Metrics.OPEN_FOOD_FACTS_SEARCH;
+        OpenFoodFactsRequestEvent event = new OpenFoodFactsRequestEvent();
+        event.begin();
+        long start = System.nanoTime();
+        CompletableFuture<List<FoodProduct>> search;
+        try {
+            search = startSearch(query, pageSize, event);
+        } catch (RuntimeException e) {
+            metrics.recordError(start);
+            commit(event, query, pageSize, null, e);
+            throw e;
+        }
+        return search.whenComplete((products, error) -> {
+            if (error != null) {
+                metrics.recordError(start);
+            } else {
+                metrics.record(start);
+            }
+            commit(event, query, pageSize, products, error);
+        });
+    }
+
+    private CompletableFuture<List<FoodProduct>> startSearch(String query, int pageSize,
+                                                             OpenFoodFactsRequestEvent event) {
+        if (cache == null) {
+            // Gyorsítótár nélkül a választ közvetlenül a hálózati folyamból dolgozzuk fel;
+            // a send határideje itt csak a fejlécekig tart, a törzsre a folyam lezárása vigyáz
+            long deadline = System.nanoTime() + requestTimeout.toNanos();
+            return send(request(query, pageSize), HttpResponse.BodyHandlers.ofInputStream())
+                    .thenApplyAsync(in -> parse(in, event, deadline), PARSE_EXECUTOR);
+        }
+
+        String key = OpenFoodFactsCache.key(query, pageSize);
+        byte[] cached = cache.get(key);
+        CompletableFuture<byte[]> body;
+        if (cached != null) {
+            Metrics.OPEN_FOOD_FACTS_CACHE.hit();
+            event.cached = true;
+            body = CompletableFuture.completedFuture(cached);
+        } else {
+            Metrics.OPEN_FOOD_FACTS_CACHE.miss();
+            body = fetchAsync(query, pageSize).thenApply(bytes -> {
+                cache.put(key, bytes);
+                return bytes;
+            });
+        }
+        return body.thenApply(bytes -> parse(new ByteArrayInputStream(bytes), event));
+    }
+
+    /**
+     * Több keresés párhuzamos indítása, legfeljebb maxConcurrent egyidejű kéréssel.
+     * Az eredmények sorrendje megegyezik a kifejezések sorrendjével; a hibák
+     * kifejezésenként, a saját future-ben jelennek meg.
+     */
+    List<CompletableFuture<List<FoodProduct>>> searchAll(List<String> queries, int pageSize, int maxConcurrent) {
+        List<CompletableFuture<List<FoodProduct>>> results = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        for (int lane = 0; lane < Math.min(maxConcurrent, queries.size()); lane++) {
+            runLane(queries, pageSize, results, next);
+        }
+        return results;
+    }
+
+    /**
+     * Egy sáv: a kifejezéseket egymás után indítja. A már kész (pl. gyorsítótárból
+     * kiszolgált) kereséseket ciklusban dolgozza fel, mert a kész future-re regisztrált
+     * whenComplete azonnal, ugyanazon a vermen fut; rekurzióval sok egymás utáni
+     * találat veremtúlcsordulást okozna. Csak egy még futó keresés befejezése indítja
+     * a sáv folytatását.
+     */
+    private void runLane(List<String> queries, int pageSize,
+                         List<CompletableFuture<List<FoodProduct>>> results, AtomicInteger next) {
+        while (true) {
+            int index = next.getAndIncrement();
+            if (index >= queries.size()) {
+                return;
+            }
+            CompletableFuture<List<FoodProduct>> target = results.get(index);
+            CompletableFuture<List<FoodProduct>> search;
+            try {
+                search = searchAsync(queries.get(index), pageSize);
+            } catch (RuntimeException e) {
+                search = CompletableFuture.failedFuture(e);
+            }
+            if (!search.isDone()) {
+                search.whenComplete((products, error) -> {
+                    transfer(products, error, target);
+                    runLane(queries, pageSize, results, next);
+                });
+                return;
+            }
+            search.whenComplete((products, error) -> transfer(products, error, target));
+        }
+    }
+
+    private static void transfer(List<FoodProduct> products, Throwable error,
+                                 CompletableFuture<List<FoodProduct>> target) {
+        if (error != null) {
+            target.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+        } else {
+            target.complete(products);
+        }
+    }
+
+    /**
+     * A nyers keresési válasz letöltése
+     */
+    CompletableFuture<byte[]> fetchAsync(String query, int pageSize) {
+        return send(request(query, pageSize), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest request(String query, int pageSize) {
+        // URL kódolás
+        String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/cgi/search.pl?search_terms=" +
+                        encodedQuery + "&json=1&page_size=" + pageSize))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    /**
+     * Kérés küldése teljes határidővel: a HttpRequest.timeout csak a válasz fejlécekig
+     * érvényes, ezért a törzs letöltésére is határidőt teszünk, és lejáratkor a
+     * kapcsolatot megszakítjuk
+     */
+    private <T> CompletableFuture<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        CompletableFuture<HttpResponse<T>> exchange = httpClient.sendAsync(request, handler);
+        CompletableFuture<T> body = exchange
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        if (response.body() instanceof InputStream) {
+                            closeQuietly((InputStream) response.body());
+                        }
+                        throw new CompletionException(new IOException(
+                                "Váratlan HTTP válasz az OpenFoodFacts-től: " + response.statusCode()));
+                    }
+                    return response.body();
+                });
+        body.orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> {
+                    if (error instanceof TimeoutException) {
+                        exchange.cancel(true);
+                    }
+                });
+        return body;
+    }
+
+    /**
+     * Hálózati folyam feldolgozása határidővel: ha a határidő lejár, a folyamot lezárjuk,
+     * így a blokkolt olvasás hibával visszatér, és a feldolgozó szál felszabadul
+     */
+    private static List<FoodProduct> parse(InputStream in, OpenFoodFactsRequestEvent event, long deadline) {
+        AtomicBoolean expired = new AtomicBoolean();
+        ScheduledFuture<?> closer = DEADLINES.schedule(() -> {
+            expired.set(true);
+            closeQuietly(in);
+        }, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        try {
+            return parse(in, event);
+        } catch (UncheckedIOException e) {
+            if (expired.get()) {
+                throw new CompletionException(new HttpTimeoutException("Az OpenFoodFacts válasza nem érkezett meg időben."));
+            }
+            throw e;
+        } finally {
+            closer.cancel(false);
+        }
+    }
+
+    /**
+     * Válasz feldolgozása; ha a JFR esemény engedélyezett, a beolvasott bájtokat és
+     * a feldolgozás idejét is rögzíti bele
+     */
+    private static List<FoodProduct> parse(InputStream in, OpenFoodFactsRequestEvent event) {
+        CountingInputStream counter = event.isEnabled() ? new CountingInputStream(in) : null;
+        long start = counter != null ? System.nanoTime() : 0;
+        try (InputStream body = counter != null ? counter : in) {
+            List<FoodProduct> products = OpenFoodFactsStreamParser.parse(body);
+            if (counter != null) {
+                event.parseTime = System.nanoTime() - start;
+                event.bytesRead = counter.count;
+            }
+            return products;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void commit(OpenFoodFactsRequestEvent event, String query, int pageSize,
+                               List<FoodProduct> products, Throwable error) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.query = query;
+            event.pageSize = pageSize;
+            event.productCount = products != null ? products.size() : 0;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                event.failure = cause.toString();
+            }
+            event.commit();
+        }
+    }
+
+    private static ExecutorService createParseExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(PARSE_THREADS, PARSE_THREADS,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), daemonThreads("OpenFoodFacts feldolgozás"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ScheduledExecutorService createDeadlineTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, daemonThreads("OpenFoodFacts határidő"));
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, name + " " + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // nincs teendő
+        }
+    }
+
+    /**
+     * A rajta átolvasott bájtokat számoló folyam (a JFR eseményhez)
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
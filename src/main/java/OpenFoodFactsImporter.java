@@ -0,0 +1,353 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Helyi OpenFoodFacts tömeges export (JSONL vagy CSV, opcionálisan gzip) importálója.
+ *
+ * A fájlt soronként, folyamatosan olvassuk; a sorok kötegekben, korlátos méretű
+ * sorokon keresztül jutnak a párhuzamos feldolgozó szálakhoz, így a memóriahasználat
+ * a fájl méretétől független. A tápanyag nélküli termékeket kihagyjuk.
+ *
+ * Használat:
+ *   java OpenFoodFactsImporter <export fájl> <kimeneti adatbázis fájl> [--threads <n>]
+ */
+class OpenFoodFactsImporter {
+    private static final int BATCH_SIZE = 512;
+
+    // Az importált termékek fogadója; a hívások sorosítva érkeznek
+    interface Sink {
+        void add(String name, NutritionInfo info) throws IOException;
+    }
+
+    private final int workers;
+
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+
+    OpenFoodFactsImporter(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
+    long getImportedCount() {
+        return imported.get();
+    }
+
+    long getSkippedCount() {
+        return skipped.get();
+    }
+
+    long getMalformedCount() {
+        return malformed.get();
+    }
+
+    /**
+     * Export fájl betöltése az adatbázisba
+     */
+    long importInto(Path dump, NutritionDatabase database) throws IOException, InterruptedException {
+        return importTo(dump, database::addIngredient);
+    }
+
+    /**
+     * Export fájl feldolgozása; visszatérési érték az importált termékek száma
+     */
+    long importTo(Path dump, Sink sink) throws IOException, InterruptedException {
+        try (BufferedReader reader = openReader(dump)) {
+            String first = reader.readLine();
+            if (first == null) {
+                return 0;
+            }
+
+            LineParser prototype;
+            List<String> pending = new ArrayList<>(BATCH_SIZE);
+            if (first.trim().startsWith("{")) {
+                prototype = null;
+                pending.add(first);
+            } else {
+                prototype = new CsvLineParser(first);
+            }
+
+            BlockingQueue<List<String>> queue = new ArrayBlockingQueue<>(workers * 2);
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            Object sinkLock = new Object();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                LineParser parser = prototype != null ? prototype : new JsonLineParser();
+                Thread thread = new Thread(() -> work(queue, parser, sink, sinkLock, failure),
+                        "off-import-" + i);
+                thread.start();
+                threads.add(thread);
+            }
+
+            try {
+                String line;
+                while ((line = reader.readLine()) != null && failure.get() == null) {
+                    pending.add(line);
+                    if (pending.size() == BATCH_SIZE) {
+                        queue.put(pending);
+                        pending = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!pending.isEmpty()) {
+                    queue.put(pending);
+                }
+            } finally {
+                // Leállító jelzés minden feldolgozó szálnak
+                for (int i = 0; i < workers; i++) {
+                    queue.put(Collections.emptyList());
+                }
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+
+            Exception error = failure.get();
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error != null) {
+                throw new IOException("Hiba az import során: " + error.getMessage(), error);
+            }
+        }
+        return imported.get();
+    }
+
+    private void work(BlockingQueue<List<String>> queue, LineParser parser, Sink sink,
+                      Object sinkLock, AtomicReference<Exception> failure) {
+        List<String> names = new ArrayList<>(BATCH_SIZE);
+        List<NutritionInfo> infos = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            List<String> batch;
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                failure.compareAndSet(null, e);
+                return;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            // Hiba után is ürítjük a sort, hogy az olvasó szál ne blokkoljon
+            if (failure.get() != null) {
+                continue;
+            }
+
+            names.clear();
+            infos.clear();
+            for (String line : batch) {
+                try {
+                    if (!parser.parse(line, names, infos)) {
+                        skipped.incrementAndGet();
+                    }
+                } catch (ParseException | RuntimeException e) {
+                    malformed.incrementAndGet();
+                }
+            }
+
+            try {
+                synchronized (sinkLock) {
+                    for (int i = 0; i < names.size(); i++) {
+                        sink.add(names.get(i), infos.get(i));
+                    }
+                }
+                imported.addAndGet(names.size());
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    /**
+     * Olvasó megnyitása; a gzip tömörítést a fájl fejléce alapján ismerjük fel
+     */
+    private static BufferedReader openReader(Path dump) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(dump), 1 << 16);
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        if (b1 == 0x1F && b2 == 0x8B) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /**
+     * Termék név képzése: termék név, generikus név vagy vonalkód; a kódot hozzáfűzzük,
+     * hogy az azonos nevű termékek ne írják felül egymást
+     */
+    static String productName(String productName, String genericName, String code) {
+        String name = productName;
+        if (name == null || name.trim().isEmpty()) {
+            name = genericName;
+        }
+        boolean hasCode = code != null && !code.trim().isEmpty();
+        if (name == null || name.trim().isEmpty()) {
+            return hasCode ? code.trim() : null;
+        }
+        return hasCode ? name.trim() + " [" + code.trim() + "]" : name.trim();
+    }
+
+    // Egy sor feldolgozása; hamis, ha a terméket ki kell hagyni
+    private interface LineParser {
+        boolean parse(String line, List<String> names, List<NutritionInfo> infos) throws ParseException;
+    }
+
+    /**
+     * JSON Lines export: soronként egy termék objektum
+     */
+    private static final class JsonLineParser implements LineParser {
+        private final JSONParser parser = new JSONParser();
+
+        @Override
+        public boolean parse(String line, List<String> names, List<NutritionInfo> infos) throws ParseException {
+            if (line.trim().isEmpty()) {
+                return false;
+            }
+            JSONObject product = (JSONObject) parser.parse(line);
+            Object nutriments = product.get("nutriments");
+            if (!(nutriments instanceof JSONObject) || !OpenFoodFactsMapping.hasNutriments((JSONObject) nutriments)) {
+                return false;
+            }
+            String name = productName(asString(product.get("product_name")),
+                    asString(product.get("generic_name")), asString(product.get("code")));
+            if (name == null) {
+                return false;
+            }
+            names.add(name);
+            infos.add(OpenFoodFactsMapping.fromNutriments((JSONObject) nutriments));
+            return true;
+        }
+
+        private static String asString(Object value) {
+            return value != null ? value.toString() : null;
+        }
+    }
+
+    /**
+     * CSV export (az OpenFoodFacts tabulátorral tagolt exportja vagy vesszős CSV):
+     * a fejléc alapján keressük meg az oszlopokat. Állapotmentes, megosztható a szálak között.
+     */
+    private static final class CsvLineParser implements LineParser {
+        private final char separator;
+        private final int codeColumn;
+        private final int nameColumn;
+        private final int genericNameColumn;
+        private final int[] nutrientColumns = new int[OpenFoodFactsMapping.KEYS.length];
+
+        CsvLineParser(String header) {
+            separator = header.indexOf('\t') >= 0 ? '\t' : ',';
+            List<String> columns = split(header, separator);
+            codeColumn = columns.indexOf("code");
+            nameColumn = columns.indexOf("product_name");
+            genericNameColumn = columns.indexOf("generic_name");
+            for (int i = 0; i < nutrientColumns.length; i++) {
+                nutrientColumns[i] = columns.indexOf(OpenFoodFactsMapping.KEYS[i]);
+            }
+        }
+
+        @Override
+        public boolean parse(String line, List<String> names, List<NutritionInfo> infos) {
+            if (line.isEmpty()) {
+                return false;
+            }
+            List<String> fields = split(line, separator);
+
+            NutritionInfo info = new NutritionInfo();
+            boolean hasNutriments = false;
+            for (int i = 0; i < nutrientColumns.length; i++) {
+                String value = field(fields, nutrientColumns[i]);
+                if (value != null && !value.isEmpty()) {
+                    info.setValue(OpenFoodFactsMapping.NUTRIENTS[i], OpenFoodFactsMapping.toDouble(value));
+                    hasNutriments = true;
+                }
+            }
+            if (!hasNutriments) {
+                return false;
+            }
+
+            String name = productName(field(fields, nameColumn), field(fields, genericNameColumn),
+                    field(fields, codeColumn));
+            if (name == null) {
+                return false;
+            }
+            names.add(name);
+            infos.add(info);
+            return true;
+        }
+
+        private static String field(List<String> fields, int column) {
+            return column >= 0 && column < fields.size() ? fields.get(column) : null;
+        }
+
+        private static List<String> split(String line, char separator) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (separator == ',' && c == '"') {
+                    if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = !quoted;
+                    }
+                } else if (c == separator && !quoted) {
+                    fields.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            fields.add(current.toString());
+            return fields;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Használat: java OpenFoodFactsImporter <export fájl> "
+                    + "<kimeneti adatbázis fájl> [--threads <n>]");
+            System.exit(2);
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length >= 4 && "--threads".equals(args[2])) {
+            threads = Integer.parseInt(args[3]);
+        }
+
+        long start = System.nanoTime();
+        OpenFoodFactsImporter importer = new OpenFoodFactsImporter(threads);
+
+        // A termékek közvetlenül a leképezhető adatbázis fájlba kerülnek, nem a heapre
+        try (MappedNutritionStore.Builder builder = new MappedNutritionStore.Builder(Paths.get(args[1]))) {
+            importer.importTo(Paths.get(args[0]), builder::add);
+            builder.finish();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.err.printf("Importálva: %d termék, kihagyva (tápanyag nélkül): %d, hibás sor: %d, idő: %d ms%n",
+                importer.getImportedCount(), importer.getSkippedCount(), importer.getMalformedCount(),
+                elapsedMillis);
+    }
+}
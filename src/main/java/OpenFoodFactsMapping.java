@@ -0,0 +1,125 @@
+import java.util.HashMap;
+import java.util.Map;
+
+import org.json.simple.JSONObject;
+
+/**
+ * Az OpenFoodFacts "nutriments" kulcsainak leképezése a saját tápanyagainkra.
+ * Ezt használja az élő keresés és a tömeges import is.
+ */
+final class OpenFoodFactsMapping {
+    // OpenFoodFacts kulcs -> tápanyag index
+    static final String[] KEYS = {
+            // Energia
+            "energy-kj_100g",
+            "energy-kcal_100g",
+            // Alapvető tápértékek
+            "fat_100g",
+            "saturated-fat_100g",
+            "carbohydrates_100g",
+            "sugars_100g",
+            "fiber_100g",
+            "proteins_100g",
+            "salt_100g",
+            "sodium_100g",
+            // További adatok (ha vannak)
+            "cholesterol_100g",
+            "trans-fat_100g",
+            "monounsaturated-fat_100g",
+            "polyunsaturated-fat_100g",
+            // Vitaminok és ásványi anyagok
+            "vitamin-a_100g",
+            "vitamin-c_100g",
+            "calcium_100g",
+            "iron_100g"
+    };
+
+    static final int[] NUTRIENTS = {
+            NutritionInfo.ENERGY,
+            NutritionInfo.ENERGY_KCAL,
+            NutritionInfo.FAT,
+            NutritionInfo.SATURATED_FAT,
+            NutritionInfo.CARBS,
+            NutritionInfo.SUGAR,
+            NutritionInfo.FIBER,
+            NutritionInfo.PROTEIN,
+            NutritionInfo.SALT,
+            NutritionInfo.SODIUM,
+            NutritionInfo.CHOLESTEROL,
+            NutritionInfo.TRANS_FAT,
+            NutritionInfo.MONOUNSATURATED_FAT,
+            NutritionInfo.POLYUNSATURATED_FAT,
+            NutritionInfo.VITAMIN_A,
+            NutritionInfo.VITAMIN_C,
+            NutritionInfo.CALCIUM,
+            NutritionInfo.IRON
+    };
+
+    private static final Map<String, Integer> KEY_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < KEYS.length; i++) {
+            KEY_INDEX.put(KEYS[i], i);
+        }
+    }
+
+    private OpenFoodFactsMapping() {
+    }
+
+    /**
+     * A leképezett kulcs indexe a KEYS tömbben, ismeretlen kulcsra -1
+     */
+    static int indexOfKey(String key) {
+        Integer index = KEY_INDEX.get(key);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Tápérték adatok kinyerése egy "nutriments" objektumból
+     */
+    static NutritionInfo fromNutriments(JSONObject nutriments) {
+        NutritionInfo nutritionInfo = new NutritionInfo();
+        for (int i = 0; i < KEYS.length; i++) {
+            nutritionInfo.setValue(NUTRIENTS[i], getDoubleValue(nutriments, KEYS[i]));
+        }
+        return nutritionInfo;
+    }
+
+    /**
+     * Igaz, ha a "nutriments" objektum legalább egy leképezett kulcsot tartalmaz
+     */
+    static boolean hasNutriments(JSONObject nutriments) {
+        if (nutriments == null) {
+            return false;
+        }
+        for (String key : KEYS) {
+            if (nutriments.containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static double getDoubleValue(JSONObject obj, String key) {
+        if (obj.containsKey(key)) {
+            return toDouble(obj.get(key));
+        }
+        return 0.0;
+    }
+
+    /**
+     * Szám vagy szöveges érték átalakítása; érvénytelen értékre 0
+     */
+    static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return 0.0;
+            }
+        }
+        return 0.0;
+    }
+}
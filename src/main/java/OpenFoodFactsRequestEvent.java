@@ -0,0 +1,44 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR esemény egy OpenFoodFacts keresésről, a kéréstől a feldolgozott találatokig.
+ * Az esemény a kérés indításakor kezdődik és a válasz feldolgozása után, a
+ * befejező szálon kerül rögzítésre.
+ */
+@Name("nutrition.OpenFoodFactsRequest")
+@Label("OpenFoodFacts Request")
+@Category({"Nutrition Calculator", "OpenFoodFacts"})
+@Description("Termékkeresés az OpenFoodFacts szolgáltatásban")
+@StackTrace(false)
+class OpenFoodFactsRequestEvent extends Event {
+    @Label("Query")
+    String query;
+
+    @Label("Page Size")
+    int pageSize;
+
+    @Label("Cached")
+    @Description("A válasz a helyi gyorsítótárból jött")
+    boolean cached;
+
+    @Label("Bytes Read")
+    @DataAmount(DataAmount.BYTES)
+    long bytesRead;
+
+    @Label("Parse Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long parseTime;
+
+    @Label("Product Count")
+    int productCount;
+
+    @Label("Failure")
+    String failure;
+}
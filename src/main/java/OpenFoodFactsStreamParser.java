@@ -0,0 +1,331 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Folyamatos (pull) feldolgozó az OpenFoodFacts keresési válaszokhoz.
+ *
+ * Közvetlenül a bemeneti folyamból olvas, és termékenként csak a "code",
+ * "product_name", "generic_name" mezőket, valamint a "nutriments" objektum
+ * leképezett *_100g kulcsait olvassa ki. Minden más részfát (képek, összetevő
+ * szövegek, címkék) karakterenként átugrik, anélkül hogy szöveget vagy
+ * objektumot hozna létre belőlük.
+ */
+final class OpenFoodFactsStreamParser {
+    private static final String UNKNOWN_PRODUCT = "Ismeretlen termék";
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private final StringBuilder text = new StringBuilder(64);
+
+    private OpenFoodFactsStreamParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Keresési válasz feldolgozása a bemeneti folyamból
+     */
+    static List<FoodProduct> parse(InputStream in) throws IOException {
+        return parse(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    static List<FoodProduct> parse(Reader reader) throws IOException {
+        return new OpenFoodFactsStreamParser(reader).parseResponse();
+    }
+
+    private List<FoodProduct> parseResponse() throws IOException {
+        List<FoodProduct> results = new ArrayList<>();
+        expect('{');
+        if (!endOf('}')) {
+            do {
+                String name = nextName();
+                if ("products".equals(name) && peek() == '[') {
+                    expect('[');
+                    if (!endOf(']')) {
+                        do {
+                            results.add(parseProduct());
+                        } while (nextElement(']'));
+                    }
+                } else {
+                    skipValue();
+                }
+            } while (nextElement('}'));
+        }
+        return results;
+    }
+
+    private FoodProduct parseProduct() throws IOException {
+        String code = null;
+        String productName = null;
+        String genericName = null;
+        boolean hasProductName = false;
+        boolean hasGenericName = false;
+        NutritionInfo nutritionInfo = new NutritionInfo();
+
+        expect('{');
+        if (!endOf('}')) {
+            do {
+                String name = nextName();
+                switch (name) {
+                    case "code":
+                        code = nextScalarAsString();
+                        break;
+                    case "product_name":
+                        hasProductName = true;
+                        productName = nextScalarAsString();
+                        break;
+                    case "generic_name":
+                        hasGenericName = true;
+                        genericName = nextScalarAsString();
+                        break;
+                    case "nutriments":
+                        parseNutriments(nutritionInfo);
+                        break;
+                    default:
+                        skipValue();
+                }
+            } while (nextElement('}'));
+        }
+
+        // Termék neve; ha üres, próbáljuk a másik mezőt
+        String displayName = hasProductName ? productName : UNKNOWN_PRODUCT;
+        if (displayName == null || displayName.trim().isEmpty()) {
+            displayName = hasGenericName && genericName != null ? genericName : UNKNOWN_PRODUCT;
+        }
+        return new FoodProduct(code, displayName, nutritionInfo);
+    }
+
+    private void parseNutriments(NutritionInfo nutritionInfo) throws IOException {
+        if (peek() != '{') {
+            skipValue();
+            return;
+        }
+        expect('{');
+        if (endOf('}')) {
+            return;
+        }
+        do {
+            int key = OpenFoodFactsMapping.indexOfKey(nextName());
+            if (key >= 0) {
+                nutritionInfo.setValue(OpenFoodFactsMapping.NUTRIENTS[key], nextScalarAsDouble());
+            } else {
+                skipValue();
+            }
+        } while (nextElement('}'));
+    }
+
+    // --- Tokenizálás ---
+
+    private String nextName() throws IOException {
+        if (peek() != '"') {
+            throw syntaxError("mezőnév");
+        }
+        String name = readString();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Szöveg, szám vagy literál értéke szövegként; null-ra null, összetett értéket átugrik
+     */
+    private String nextScalarAsString() throws IOException {
+        char c = peek();
+        if (c == '"') {
+            return readString();
+        } else if (c == '{' || c == '[') {
+            skipValue();
+            return null;
+        }
+        String literal = readLiteral();
+        return "null".equals(literal) ? null : literal;
+    }
+
+    /**
+     * Numerikus érték (szám vagy szövegként megadott szám); érvénytelen értékre 0
+     */
+    private double nextScalarAsDouble() throws IOException {
+        String value = nextScalarAsString();
+        return value != null ? OpenFoodFactsMapping.toDouble(value) : 0.0;
+    }
+
+    /**
+     * Egy teljes érték átugrása objektumok és szövegek létrehozása nélkül
+     */
+    private void skipValue() throws IOException {
+        char c = peek();
+        if (c == '"') {
+            skipString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            while (true) {
+                c = read();
+                if (c == '"') {
+                    position--;
+                    skipString();
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    if (--depth == 0) {
+                        return;
+                    }
+                }
+            }
+        } else {
+            while (position < limit || fill()) {
+                c = buffer[position];
+                if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                    return;
+                }
+                position++;
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+        expect('"');
+        text.setLength(0);
+        while (true) {
+            char c = read();
+            if (c == '"') {
+                return text.toString();
+            } else if (c == '\\') {
+                text.append(readEscape());
+            } else {
+                text.append(c);
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        expect('"');
+        while (true) {
+            char c = read();
+            if (c == '"') {
+                return;
+            } else if (c == '\\') {
+                read();
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        char c = read();
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("hexadecimális számjegy");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                return c;
+        }
+    }
+
+    private String readLiteral() throws IOException {
+        text.setLength(0);
+        while (position < limit || fill()) {
+            char c = buffer[position];
+            if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+                break;
+            }
+            text.append(c);
+            position++;
+        }
+        if (text.length() == 0) {
+            throw syntaxError("érték");
+        }
+        return text.toString();
+    }
+
+    /**
+     * A következő elem előtti vessző feldolgozása; hamis, ha a tároló lezárult
+     */
+    private boolean nextElement(char close) throws IOException {
+        char c = peek();
+        position++;
+        if (c == ',') {
+            return true;
+        } else if (c == close) {
+            return false;
+        }
+        throw syntaxError("',' vagy '" + close + "'");
+    }
+
+    /**
+     * Üres tároló ellenőrzése közvetlenül a nyitó jel után
+     */
+    private boolean endOf(char close) throws IOException {
+        if (peek() == close) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peek() != expected) {
+            throw syntaxError("'" + expected + "'");
+        }
+        position++;
+    }
+
+    /**
+     * A következő nem üres karakter, fogyasztás nélkül
+     */
+    private char peek() throws IOException {
+        while (position < limit || fill()) {
+            char c = buffer[position];
+            if (!isWhitespace(c)) {
+                return c;
+            }
+            position++;
+        }
+        throw new IOException("Váratlan vége a JSON válasznak.");
+    }
+
+    private char read() throws IOException {
+        if (position < limit || fill()) {
+            return buffer[position++];
+        }
+        throw new IOException("Váratlan vége a JSON válasznak.");
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private IOException syntaxError(String expected) {
+        return new IOException("Érvénytelen JSON válasz: " + expected + " várható.");
+    }
+}
@@ -0,0 +1,76 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Egy időzített művelet mérőszámai: késleltetés hisztogram, hívás- és hibaszám.
+ * A rögzítés zármentes, a forró úton csak egy System.nanoTime() hívás a többlet.
+ *
+ * Használat:
+ * <pre>
+ * long start = System.nanoTime();
+ * ... művelet ...
+ * metrics.record(start);   // vagy hiba esetén metrics.recordError(start)
+ * </pre>
+ */
+class OperationMetrics implements OperationMetricsMXBean {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private volatile long since = System.nanoTime();
+
+    /**
+     * Sikeres hívás rögzítése a System.nanoTime() szerinti kezdőidőponttól
+     */
+    void record(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Hibás hívás rögzítése (a késleltetésbe is beleszámít)
+     */
+    void recordError(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        errors.increment();
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getThroughputPerSecond() {
+        double seconds = (System.nanoTime() - since) / 1e9;
+        return seconds > 0 ? latency.getCount() / seconds : 0.0;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMean() / 1000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.getPercentile(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.getPercentile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.getMax() / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.reset();
+        since = System.nanoTime();
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * Egy időzített művelet JMX nézete (idők mikroszekundumban)
+ */
+public interface OperationMetricsMXBean {
+    /**
+     * Összes befejezett hívás (sikeres és hibás)
+     */
+    long getCount();
+
+    long getErrorCount();
+
+    /**
+     * Átlagos hívásszám másodpercenként az indulás (vagy az utolsó nullázás) óta
+     */
+    double getThroughputPerSecond();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
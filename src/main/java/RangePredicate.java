@@ -0,0 +1,74 @@
+/**
+ * Egy tápanyag 100g-ra vonatkoztatott értékére vonatkozó tartomány feltétel,
+ * pl. "fehérje > 20" vagy "só <= 1". Változtathatatlan.
+ */
+final class RangePredicate {
+    final int nutrient;
+    final double min;
+    final double max;
+    final boolean minInclusive;
+    final boolean maxInclusive;
+
+    /**
+     * @throws IllegalArgumentException ismeretlen tápanyag vagy üres tartomány esetén
+     */
+    RangePredicate(String nutrient, double min, boolean minInclusive, double max, boolean maxInclusive) {
+        this.nutrient = NutritionInfo.indexOf(nutrient);
+        if (this.nutrient < 0) {
+            throw new IllegalArgumentException("Ismeretlen tápanyag: " + nutrient);
+        }
+        if (Double.isNaN(min) || Double.isNaN(max) || min > max
+                || (min == max && !(minInclusive && maxInclusive))) {
+            throw new IllegalArgumentException("Üres tartomány: " + nutrient);
+        }
+        this.min = min;
+        this.max = max;
+        this.minInclusive = minInclusive;
+        this.maxInclusive = maxInclusive;
+    }
+
+    static RangePredicate greaterThan(String nutrient, double value) {
+        return new RangePredicate(nutrient, value, false, Double.POSITIVE_INFINITY, true);
+    }
+
+    static RangePredicate atLeast(String nutrient, double value) {
+        return new RangePredicate(nutrient, value, true, Double.POSITIVE_INFINITY, true);
+    }
+
+    static RangePredicate lessThan(String nutrient, double value) {
+        return new RangePredicate(nutrient, Double.NEGATIVE_INFINITY, true, value, false);
+    }
+
+    static RangePredicate atMost(String nutrient, double value) {
+        return new RangePredicate(nutrient, Double.NEGATIVE_INFINITY, true, value, true);
+    }
+
+    /**
+     * Zárt tartomány: min <= érték <= max
+     */
+    static RangePredicate between(String nutrient, double min, double max) {
+        return new RangePredicate(nutrient, min, true, max, true);
+    }
+
+    String getNutrient() {
+        return NutritionInfo.getNutrientName(nutrient);
+    }
+
+    boolean test(double value) {
+        return (minInclusive ? value >= min : value > min)
+                && (maxInclusive ? value <= max : value < max);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (min != Double.NEGATIVE_INFINITY) {
+            sb.append(min).append(minInclusive ? " <= " : " < ");
+        }
+        sb.append(getNutrient());
+        if (max != Double.POSITIVE_INFINITY) {
+            sb.append(maxInclusive ? " <= " : " < ").append(max);
+        }
+        return sb.toString();
+    }
+}
@@ -1,4 +1,5 @@
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -10,6 +11,7 @@ class Recipe implements Serializable {
 
     private String name;
     private Map<String, Double> ingredients; // összetevő név -> mennyiség (g)
+    private transient Map<String, Double> ingredientsView;
 
     public Recipe(String name) {
         this.name = name;
@@ -39,5 +41,15 @@ class Recipe implements Serializable {
     public Map<String, Double> getIngredients() {
         return new HashMap<>(ingredients);
     }
+
+    /**
+     * Csak olvasható nézet az összetevőkre, másolás nélkül (a számításokhoz)
+     */
+    Map<String, Double> ingredientsView() {
+        if (ingredientsView == null) {
+            ingredientsView = Collections.unmodifiableMap(ingredients);
+        }
+        return ingredientsView;
+    }
 }
 
@@ -0,0 +1,255 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Tömör, verziózott bináris recept formátum (a Java szerializáció helyett).
+ *
+ * Felépítés (big-endian):
+ *   magic "NREC" (4 bájt), verzió (2 bájt),
+ *   recept név (varint hossz + UTF-8), összetevők száma (varint),
+ *   összetevőnként: név (varint hossz + UTF-8), mennyiség grammban (IEEE 754 double).
+ *
+ * A régi, Java szerializációval mentett fájlokat a beolvasás felismeri és
+ * szigorú osztály szűrővel olvassa be, kérésre át is írja az új formátumra.
+ */
+final class RecipeCodec {
+    static final int MAGIC = 0x4E524543; // "NREC"
+    static final int VERSION = 1;
+
+    // A Java szerializációs folyam fejléce (régi fájlok felismeréséhez)
+    private static final short JAVA_SERIALIZATION_MAGIC = (short) 0xACED;
+
+    // Régi fájlok beolvasásánál csak ezek az osztályok engedélyezettek
+    private static final ObjectInputFilter LEGACY_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=8;maxrefs=100000;maxarray=100000;Recipe;java.util.HashMap;java.util.Map$Entry;"
+                    + "java.lang.Double;java.lang.Number;!*");
+
+    private RecipeCodec() {
+    }
+
+    /**
+     * Recept kódolása egy olvasásra kész (flip-elt) ByteBufferbe
+     */
+    static ByteBuffer encode(Recipe recipe) {
+        Map<String, Double> ingredients = recipe.ingredientsView();
+        byte[] name = utf8(recipe.getName());
+
+        // Pontos méret előre számítva, hogy egyetlen foglalás elég legyen
+        int size = 4 + 2 + varintSize(name.length) + name.length + varintSize(ingredients.size());
+        byte[][] names = new byte[ingredients.size()][];
+        int i = 0;
+        for (String ingredient : ingredients.keySet()) {
+            names[i] = utf8(ingredient);
+            size += varintSize(names[i].length) + names[i].length + 8;
+            i++;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        putBytes(buffer, name);
+        putVarint(buffer, ingredients.size());
+        i = 0;
+        for (Double weight : ingredients.values()) {
+            putBytes(buffer, names[i++]);
+            buffer.putDouble(weight);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Recept dekódolása a bináris formátumból
+     */
+    static Recipe decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Ismeretlen recept fájlformátum.");
+            }
+            int version = buffer.getShort() & 0xFFFF;
+            if (version != VERSION) {
+                throw new IOException("Nem támogatott recept fájl verzió: " + version);
+            }
+
+            Recipe recipe = new Recipe(getString(buffer));
+            int count = getVarint(buffer);
+            for (int i = 0; i < count; i++) {
+                String ingredient = getString(buffer);
+                recipe.addIngredient(ingredient, buffer.getDouble());
+            }
+            return recipe;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Sérült recept fájl: váratlan fájlvége.", e);
+        }
+    }
+
+    /**
+     * Recept mentése fájlba (ideiglenes fájlon keresztül, hogy félbeszakadt írás ne rontsa el)
+     */
+    static void write(Path file, Recipe recipe) throws IOException {
+        RecipeFileEvent event = new RecipeFileEvent();
+        event.begin();
+        ByteBuffer buffer = encode(recipe);
+        event.bytes = buffer.remaining();
+        event.ingredientCount = recipe.ingredientsView().size();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            finish(event, RecipeFileEvent.SAVE, file, e);
+            throw e;
+        }
+        finish(event, RecipeFileEvent.SAVE, file, null);
+    }
+
+    /**
+     * Recept beolvasása fájlból; a régi formátumot is felismeri
+     */
+    static Recipe read(Path file) throws IOException {
+        return read(file, false);
+    }
+
+    /**
+     * Recept beolvasása fájlból. Ha migrate igaz, a régi (Java szerializált)
+     * fájlokat sikeres beolvasás után az új formátumban írjuk vissza.
+     */
+    static Recipe read(Path file, boolean migrate) throws IOException {
+        RecipeFileEvent event = new RecipeFileEvent();
+        event.begin();
+        Recipe recipe;
+        boolean legacy;
+        try {
+            ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("A recept fájl túl nagy: " + file);
+                }
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // olvasás a puffer megteléséig
+                }
+                buffer.flip();
+            }
+            event.bytes = buffer.remaining();
+
+            legacy = buffer.remaining() >= 2 && buffer.getShort(0) == JAVA_SERIALIZATION_MAGIC;
+            event.legacyFormat = legacy;
+            recipe = legacy ? decodeLegacy(buffer) : decode(buffer);
+            event.ingredientCount = recipe.ingredientsView().size();
+        } catch (IOException | RuntimeException e) {
+            finish(event, RecipeFileEvent.LOAD, file, e);
+            throw e;
+        }
+        finish(event, RecipeFileEvent.LOAD, file, null);
+
+        if (legacy && migrate) {
+            write(file, recipe);
+        }
+        return recipe;
+    }
+
+    private static void finish(RecipeFileEvent event, String operation, Path file, Exception failure) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.path = file.toString();
+            event.failure = failure != null ? failure.getMessage() : null;
+            event.commit();
+        }
+    }
+
+    /**
+     * Régi, Java szerializációval mentett recept beolvasása
+     */
+    private static Recipe decodeLegacy(ByteBuffer buffer) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+                buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining()))) {
+            in.setObjectInputFilter(LEGACY_FILTER);
+            Object value = in.readObject();
+            if (!(value instanceof Recipe)) {
+                throw new InvalidObjectException("A fájl nem receptet tartalmaz.");
+            }
+            return (Recipe) value;
+        } catch (ClassNotFoundException e) {
+            throw new InvalidObjectException("Ismeretlen osztály a régi recept fájlban: " + e.getMessage());
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        putVarint(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) throws IOException {
+        int length = getVarint(buffer);
+        if (length > buffer.remaining()) {
+            throw new IOException("Sérült recept fájl: érvénytelen szöveghossz.");
+        }
+        String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("Sérült recept fájl: érvénytelen hossz.");
+                }
+                return value;
+            }
+        }
+        throw new IOException("Sérült recept fájl: túl hosszú varint.");
+    }
+}
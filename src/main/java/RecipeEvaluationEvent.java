@@ -0,0 +1,34 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR esemény egy recept kiszámításáról (NutritionEngine).
+ * Kikapcsolt esemény esetén a JIT a rögzítést gyakorlatilag teljesen elhagyja.
+ */
+@Name("nutrition.RecipeEvaluation")
+@Label("Recipe Evaluation")
+@Category({"Nutrition Calculator", "Calculation"})
+@Description("Egy recept tápértékének kiszámítása")
+@StackTrace(false)
+class RecipeEvaluationEvent extends Event {
+    @Label("Ingredient Count")
+    int ingredientCount;
+
+    @Label("Total Weight (g)")
+    double totalWeight;
+
+    @Label("Baked Weight (g)")
+    @Description("Sütés utáni súly; 0, ha nem volt sütési korrekció")
+    double bakedWeight;
+
+    @Label("Cache Hit")
+    boolean cacheHit;
+
+    @Label("Failure")
+    @Description("Hibaüzenet, ha a számítás nem sikerült")
+    String failure;
+}
@@ -0,0 +1,38 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR esemény egy recept fájl mentéséről vagy betöltéséről (RecipeCodec)
+ */
+@Name("nutrition.RecipeFile")
+@Label("Recipe File")
+@Category({"Nutrition Calculator", "I/O"})
+@Description("Recept mentése vagy betöltése")
+class RecipeFileEvent extends Event {
+    static final String SAVE = "save";
+    static final String LOAD = "load";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    @DataAmount(DataAmount.BYTES)
+    long bytes;
+
+    @Label("Ingredient Count")
+    int ingredientCount;
+
+    @Label("Legacy Format")
+    @Description("Régi, Java szerializált fájl")
+    boolean legacyFormat;
+
+    @Label("Failure")
+    String failure;
+}
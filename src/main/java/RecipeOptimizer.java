@@ -0,0 +1,355 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recept összetevő súlyainak optimalizálása tápanyag célokhoz, pl. "100g sütött
+ * termékben legfeljebb 1,2 g só és legalább 6 g rost".
+ *
+ * A feltételek a 100g-ra vonatkoztatott (a korrekciós faktorral sütés utánira
+ * átszámolt) értékekre vonatkoznak. Mivel a 100g-os érték f · Σ aᵢwᵢ / Σ wᵢ, egy
+ * "érték <= c" feltétel lineáris a súlyokban: Σ (f · aᵢ − c) · wᵢ <= 0. A cél a
+ * jelenlegi súlyoktól való legkisebb összes eltérés (grammban), így az eredmény a
+ * recept legkisebb módosítása, amely minden feltételt teljesít.
+ *
+ * Alapértelmezésben az összetevők súlya 0 és végtelen között változhat, a recept
+ * összsúlya pedig a jelenlegi marad. A szigorú egyenlőtlenségek (pl. "só < 1,2")
+ * a határon is teljesültnek számítanak.
+ *
+ * Az utolsó optimális bázist megjegyezzük: ha a következő feladat szerkezete azonos
+ * (ugyanazok az összetevők, feltételek és korlátok, csak más értékekkel), a megoldás
+ * onnan folytatódik, így egy kis módosítás utáni újraszámítás néhány lépés.
+ * Nem szálbiztos.
+ */
+class RecipeOptimizer {
+    private final NutritionDatabase database;
+
+    private final Map<String, double[]> weightRanges = new HashMap<>();
+    private final List<RangePredicate> constraints = new ArrayList<>();
+    private double correctionFactor = 1.0;
+    // null: a recept jelenlegi összsúlya
+    private double[] totalWeightRange;
+
+    // Meleg indítás: az előző feladat szerkezete és optimális bázisa
+    private List<String> lastStructure;
+    private int[] lastBasis;
+
+    /**
+     * Az optimalizálás eredménye
+     */
+    static final class Result {
+        final Map<String, Double> weights;
+        final double totalWeight;
+        final NutritionInfo nutrition;
+        final double deviation;
+        final int iterations;
+        final boolean warmStarted;
+
+        Result(Map<String, Double> weights, double totalWeight, NutritionInfo nutrition,
+               double deviation, int iterations, boolean warmStarted) {
+            this.weights = weights;
+            this.totalWeight = totalWeight;
+            this.nutrition = nutrition;
+            this.deviation = deviation;
+            this.iterations = iterations;
+            this.warmStarted = warmStarted;
+        }
+
+        /**
+         * Az optimális súlyok összetevőnként (g)
+         */
+        Map<String, Double> getWeights() {
+            return weights;
+        }
+
+        double getTotalWeight() {
+            return totalWeight;
+        }
+
+        /**
+         * Az eredmény 100g-ra vonatkoztatott tápértéke a korrekciós faktorral
+         */
+        NutritionInfo getNutrition() {
+            return nutrition;
+        }
+
+        /**
+         * A súlyok összes eltérése az eredeti recepttől (g)
+         */
+        double getDeviation() {
+            return deviation;
+        }
+
+        int getIterations() {
+            return iterations;
+        }
+
+        boolean wasWarmStarted() {
+            return warmStarted;
+        }
+
+        /**
+         * Az optimalizált recept
+         */
+        Recipe toRecipe(String name) {
+            Recipe recipe = new Recipe(name);
+            for (Map.Entry<String, Double> entry : weights.entrySet()) {
+                recipe.addIngredient(entry.getKey(), entry.getValue());
+            }
+            return recipe;
+        }
+    }
+
+    RecipeOptimizer(NutritionDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Egy összetevő megengedett súly tartománya (g); a max lehet végtelen
+     *
+     * @throws IllegalArgumentException negatív vagy üres tartomány esetén
+     */
+    void setWeightRange(String ingredient, double min, double max) {
+        weightRanges.put(ingredient, range(min, max, "Érvénytelen súly tartomány: " + ingredient));
+    }
+
+    void clearWeightRange(String ingredient) {
+        weightRanges.remove(ingredient);
+    }
+
+    /**
+     * Feltétel a 100g-ra vonatkoztatott (korrigált) tápértékre
+     */
+    void addConstraint(RangePredicate constraint) {
+        constraints.add(constraint);
+    }
+
+    void clearConstraints() {
+        constraints.clear();
+    }
+
+    List<RangePredicate> getConstraints() {
+        return Collections.unmodifiableList(constraints);
+    }
+
+    /**
+     * A feltételekhez használt korrekciós faktor (sütés előtti / sütés utáni súly,
+     * lásd NutritionEngine.correctionFactor); 1, ha nincs sütési veszteség
+     *
+     * @throws IllegalArgumentException ha a faktor kisebb 1-nél
+     */
+    void setCorrectionFactor(double factor) {
+        if (!(factor >= 1) || Double.isInfinite(factor)) {
+            throw new IllegalArgumentException("Érvénytelen korrekciós faktor: " + factor);
+        }
+        correctionFactor = factor;
+    }
+
+    /**
+     * A recept összsúlyának megengedett tartománya (g), ha az összsúly is változhat
+     *
+     * @throws IllegalArgumentException ha a tartomány üres vagy a minimum nem pozitív
+     */
+    void setTotalWeightRange(double min, double max) {
+        if (!(min > 0)) {
+            throw new IllegalArgumentException("A recept összsúlya nem lehet nulla.");
+        }
+        totalWeightRange = range(min, max, "Érvénytelen összsúly tartomány.");
+    }
+
+    /**
+     * Az összsúly újra a recept jelenlegi összsúlya
+     */
+    void keepTotalWeight() {
+        totalWeightRange = null;
+    }
+
+    /**
+     * A feltételeknek megfelelő, az eredetihez legközelebbi súlyok kiszámítása
+     *
+     * @throws IllegalArgumentException ha egy összetevő nem található, egy súly tartomány
+     *                                  nem a recept összetevőjére vonatkozik, vagy a
+     *                                  feltételek nem teljesíthetők egyszerre
+     */
+    Result optimize(Recipe recipe) {
+        Map<String, Double> ingredients = recipe.ingredientsView();
+        for (String ingredient : weightRanges.keySet()) {
+            if (!ingredients.containsKey(ingredient)) {
+                throw new IllegalArgumentException("Az összetevő nem szerepel a receptben: " + ingredient);
+            }
+        }
+        int n = ingredients.size();
+        String[] names = ingredients.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        NutritionInfo[] infos = new NutritionInfo[n];
+        database.getNutritionInfo(names, n, infos);
+        double[] current = new double[n];
+        double[] lower = new double[n];
+        double[] upper = new double[n];
+        double currentTotal = 0;
+        for (int i = 0; i < n; i++) {
+            if (infos[i] == null) {
+                throw new IllegalArgumentException(
+                        "Nem található tápérték információ a következő összetevőhöz: " + names[i]);
+            }
+            current[i] = ingredients.get(names[i]);
+            currentTotal += current[i];
+            double[] range = weightRanges.get(names[i]);
+            lower[i] = range != null ? range[0] : 0;
+            upper[i] = range != null ? range[1] : Double.POSITIVE_INFINITY;
+        }
+        double minTotal = totalWeightRange != null ? totalWeightRange[0] : currentTotal;
+        double maxTotal = totalWeightRange != null ? totalWeightRange[1] : currentTotal;
+        if (!(minTotal > 0)) {
+            throw new IllegalArgumentException("A recept összsúlya nem lehet nulla.");
+        }
+
+        // Sorok: tápanyag feltételek, felső korlátok, eltérések, összsúly
+        List<String> structure = new ArrayList<>();
+        for (String name : names) {
+            structure.add("x:" + name);
+        }
+        List<double[]> coefficients = new ArrayList<>();
+        List<Double> limits = new ArrayList<>();
+        for (RangePredicate constraint : constraints) {
+            if (constraint.max != Double.POSITIVE_INFINITY) {
+                addNutrientRow(constraint.nutrient, constraint.max, 1, infos, lower, coefficients, limits);
+                structure.add("max:" + constraint.nutrient);
+            }
+            if (constraint.min != Double.NEGATIVE_INFINITY) {
+                addNutrientRow(constraint.nutrient, constraint.min, -1, infos, lower, coefficients, limits);
+                structure.add("min:" + constraint.nutrient);
+            }
+        }
+        int nutrientRows = coefficients.size();
+        int upperRows = 0;
+        for (int i = 0; i < n; i++) {
+            if (upper[i] != Double.POSITIVE_INFINITY) {
+                upperRows++;
+                structure.add("upper:" + names[i]);
+            }
+        }
+        boolean fixedTotal = minTotal == maxTotal;
+        boolean maxTotalRow = !fixedTotal && maxTotal != Double.POSITIVE_INFINITY;
+        boolean minTotalRow = !fixedTotal && minTotal > sum(lower);
+        structure.add("total:" + fixedTotal + ":" + maxTotalRow + ":" + minTotalRow);
+
+        // Oszlopok: x (súly - alsó korlát), p és m (eltérés fel / le), majd a sorok pótlólagos változói
+        int rows = nutrientRows + upperRows + n + (fixedTotal ? 1 : 0) + (maxTotalRow ? 1 : 0) + (minTotalRow ? 1 : 0);
+        int slacks = nutrientRows + upperRows + (maxTotalRow ? 1 : 0) + (minTotalRow ? 1 : 0);
+        SimplexSolver solver = new SimplexSolver(rows, 3 * n + slacks);
+        int row = 0;
+        int slack = 3 * n;
+        for (int k = 0; k < nutrientRows; k++, row++) {
+            double[] g = coefficients.get(k);
+            for (int i = 0; i < n; i++) {
+                solver.set(row, i, g[i]);
+            }
+            solver.set(row, slack++, 1);
+            solver.setRightHandSide(row, limits.get(k));
+        }
+        for (int i = 0; i < n; i++) {
+            if (upper[i] != Double.POSITIVE_INFINITY) {
+                solver.set(row, i, 1);
+                solver.set(row, slack++, 1);
+                solver.setRightHandSide(row++, upper[i] - lower[i]);
+            }
+        }
+        for (int i = 0; i < n; i++, row++) {
+            solver.set(row, i, 1);
+            solver.set(row, n + i, -1);
+            solver.set(row, 2 * n + i, 1);
+            solver.setRightHandSide(row, current[i] - lower[i]);
+            solver.setCost(n + i, 1);
+            solver.setCost(2 * n + i, 1);
+        }
+        if (fixedTotal) {
+            addTotalRow(solver, row++, n, -1, 1, minTotal - sum(lower));
+        }
+        if (maxTotalRow) {
+            addTotalRow(solver, row++, n, slack++, 1, maxTotal - sum(lower));
+        }
+        if (minTotalRow) {
+            addTotalRow(solver, row++, n, slack++, -1, sum(lower) - minTotal);
+        }
+
+        int[] warmBasis = structure.equals(lastStructure) ? lastBasis : null;
+        SimplexSolver.Status status = solver.solve(warmBasis);
+        if (status != SimplexSolver.Status.OPTIMAL) {
+            lastStructure = null;
+            lastBasis = null;
+            throw new IllegalArgumentException("A megadott feltételek egyszerre nem teljesíthetők.");
+        }
+        lastStructure = structure;
+        lastBasis = solver.getBasis();
+
+        double[] solution = solver.getSolution();
+        Map<String, Double> weights = new LinkedHashMap<>();
+        double[] totals = new double[NutritionInfo.NUTRIENT_COUNT];
+        double totalWeight = 0;
+        for (int i = 0; i < n; i++) {
+            double weight = lower[i] + solution[i];
+            weights.put(names[i], weight);
+            totalWeight += weight;
+            for (int nutrient = 0; nutrient < totals.length; nutrient++) {
+                totals[nutrient] += infos[i].getValue(nutrient) * weight;
+            }
+        }
+        NutritionInfo nutrition = new NutritionInfo();
+        for (int nutrient = 0; nutrient < totals.length; nutrient++) {
+            nutrition.setValue(nutrient, totals[nutrient] / totalWeight * correctionFactor);
+        }
+        return new Result(Collections.unmodifiableMap(weights), totalWeight, nutrition,
+                solver.getObjective(), solver.getIterations(), solver.wasWarmStarted());
+    }
+
+    /**
+     * sign = 1: Σ (f·aᵢ − limit)·wᵢ <= 0; sign = -1: ugyanez >= 0.
+     * A sort a legnagyobb együtthatóval normáljuk, hogy a tűréshatár tápanyagtól független legyen.
+     */
+    private void addNutrientRow(int nutrient, double limit, double sign, NutritionInfo[] infos, double[] lower,
+                                List<double[]> coefficients, List<Double> limits) {
+        double[] g = new double[infos.length];
+        double scale = 0;
+        for (int i = 0; i < infos.length; i++) {
+            g[i] = sign * (correctionFactor * infos[i].getValue(nutrient) - limit);
+            scale = Math.max(scale, Math.abs(g[i]));
+        }
+        double rhs = 0;
+        for (int i = 0; i < g.length; i++) {
+            g[i] = scale > 0 ? g[i] / scale : 0;
+            rhs -= g[i] * lower[i];
+        }
+        coefficients.add(g);
+        limits.add(rhs);
+    }
+
+    private static void addTotalRow(SimplexSolver solver, int row, int n, int slack, double sign, double rhs) {
+        for (int i = 0; i < n; i++) {
+            solver.set(row, i, sign);
+        }
+        if (slack >= 0) {
+            solver.set(row, slack, 1);
+        }
+        solver.setRightHandSide(row, rhs);
+    }
+
+    private static double[] range(double min, double max, String message) {
+        if (!(min >= 0) || !(max >= min)) {
+            throw new IllegalArgumentException(message);
+        }
+        return new double[]{min, max};
+    }
+
+    private static double sum(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,149 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+/**
+ * Az eredmény panel táblázat modellje: soronként egy tápanyag (vagy csoport cím),
+ * oszloponként a sütés előtti és (összehasonlításkor) a sütés utáni 100g-os érték.
+ *
+ * A sorok és a címkék rögzítettek; frissítéskor csak a ténylegesen megváltozott
+ * cellákra küldünk cella szintű változás eseményt, így a táblázat a helyén frissül,
+ * a komponensfa újraépítése nélkül. Szerkezeti esemény csak a sütés utáni oszlop
+ * megjelenésekor vagy eltűnésekor keletkezik. Csak az EDT-ről használható.
+ */
+class ResultTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    // Csoport cím sor jelölése a sorrendben
+    private static final int HEADING = -1;
+
+    // Megjelenítési sorrend (tápanyag indexek, HEADING a csoport címnél)
+    private static final int[] ROWS = {
+            NutritionInfo.ENERGY, NutritionInfo.ENERGY_KCAL,
+            NutritionInfo.FAT, NutritionInfo.SATURATED_FAT, NutritionInfo.MONOUNSATURATED_FAT,
+            NutritionInfo.POLYUNSATURATED_FAT, NutritionInfo.TRANS_FAT, NutritionInfo.CHOLESTEROL,
+            NutritionInfo.CARBS, NutritionInfo.SUGAR, NutritionInfo.STARCH, NutritionInfo.FIBER,
+            NutritionInfo.PROTEIN, NutritionInfo.SALT,
+            HEADING,
+            NutritionInfo.VITAMIN_A, NutritionInfo.VITAMIN_C, NutritionInfo.VITAMIN_D, NutritionInfo.VITAMIN_E,
+            NutritionInfo.VITAMIN_K, NutritionInfo.VITAMIN_B1, NutritionInfo.VITAMIN_B2, NutritionInfo.VITAMIN_B3,
+            NutritionInfo.VITAMIN_B6, NutritionInfo.VITAMIN_B12, NutritionInfo.FOLATE,
+            NutritionInfo.CALCIUM, NutritionInfo.IRON, NutritionInfo.MAGNESIUM, NutritionInfo.PHOSPHORUS,
+            NutritionInfo.POTASSIUM, NutritionInfo.SODIUM, NutritionInfo.ZINC
+    };
+    private static final String HEADING_LABEL = "Vitaminok és ásványi anyagok";
+
+    static final int LABEL_COLUMN = 0;
+    static final int RAW_COLUMN = 1;
+    static final int BAKED_COLUMN = 2;
+
+    // Az aktuális értékek soronként; NaN, ha nincs eredmény
+    private final double[] raw = new double[ROWS.length];
+    private final double[] baked = new double[ROWS.length];
+    private boolean comparison;
+
+    ResultTableModel() {
+        Arrays.fill(raw, Double.NaN);
+        Arrays.fill(baked, Double.NaN);
+    }
+
+    /**
+     * Csak sütés előtti eredmény megjelenítése
+     */
+    void showResult(NutritionInfo result) {
+        setComparison(false);
+        update(raw, result, RAW_COLUMN);
+    }
+
+    /**
+     * Sütés előtti és utáni eredmény egymás mellett
+     */
+    void showComparison(NutritionInfo rawResult, NutritionInfo bakedResult) {
+        setComparison(true);
+        update(raw, rawResult, RAW_COLUMN);
+        update(baked, bakedResult, BAKED_COLUMN);
+    }
+
+    /**
+     * Az értékek törlése (a címkék maradnak)
+     */
+    void clear() {
+        update(raw, null, RAW_COLUMN);
+        if (comparison) {
+            update(baked, null, BAKED_COLUMN);
+        }
+    }
+
+    boolean isComparison() {
+        return comparison;
+    }
+
+    /**
+     * Csoport cím sor-e (a megjelenítéshez)
+     */
+    boolean isHeading(int row) {
+        return ROWS[row] == HEADING;
+    }
+
+    @Override
+    public int getRowCount() {
+        return ROWS.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return comparison ? 3 : 2;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        switch (column) {
+            case LABEL_COLUMN:
+                return "Tápanyag";
+            case RAW_COLUMN:
+                return comparison ? "Sütés előtt" : "100g";
+            default:
+                return "Sütés után";
+        }
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == LABEL_COLUMN ? String.class : Double.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int nutrient = ROWS[row];
+        if (column == LABEL_COLUMN) {
+            return nutrient == HEADING ? HEADING_LABEL : NutritionInfo.getDisplayName(nutrient);
+        }
+        double value = column == RAW_COLUMN ? raw[row] : baked[row];
+        return nutrient == HEADING || Double.isNaN(value) ? null : value;
+    }
+
+    private void setComparison(boolean comparison) {
+        if (this.comparison != comparison) {
+            this.comparison = comparison;
+            if (!comparison) {
+                Arrays.fill(baked, Double.NaN);
+            }
+            fireTableStructureChanged();
+        }
+    }
+
+    /**
+     * Az oszlop értékeinek frissítése; esemény csak a megváltozott cellákra
+     */
+    private void update(double[] values, NutritionInfo info, int column) {
+        for (int row = 0; row < ROWS.length; row++) {
+            if (ROWS[row] == HEADING) {
+                continue;
+            }
+            double value = info != null ? info.getValue(ROWS[row]) : Double.NaN;
+            if (Double.compare(values[row], value) != 0) {
+                values[row] = value;
+                fireTableCellUpdated(row, column);
+            }
+        }
+    }
+}
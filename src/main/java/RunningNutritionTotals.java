@@ -0,0 +1,189 @@
+import javax.swing.SwingUtilities;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Az összetevő táblázat tápanyagonkénti futó összegei.
+ *
+ * A táblázat sorait tükrözzük (név, súly, tápérték), és minden beszúrás, törlés
+ * vagy súlymódosítás csak az érintett sorok hozzájárulását vonja le, illetve adja
+ * hozzá, így egy változás költsége O(tápanyagok) a sorok számától függetlenül.
+ * Teljes újraszámítás csak a teljes táblázat cseréjekor történik. Csak az eseménykezelő
+ * szálról (EDT) használható.
+ */
+class RunningNutritionTotals implements TableModelListener, NutritionDatabase.Listener {
+    private final TableModel model;
+    private final NutritionDatabase database;
+    private final int nameColumn;
+    private final int weightColumn;
+    private final Runnable onChange;
+
+    private final List<Row> rows = new ArrayList<>();
+    private final double[] totals = new double[NutritionInfo.NUTRIENT_COUNT];
+    private double totalWeight;
+    private int missingCount;
+
+    private static final class Row {
+        String name;
+        double weight;
+        NutritionInfo info;
+    }
+
+    /**
+     * @param onChange az összegek minden változása után meghívva (pl. az eredmény panel frissítése)
+     */
+    RunningNutritionTotals(TableModel model, NutritionDatabase database, int nameColumn, int weightColumn,
+                           Runnable onChange) {
+        this.model = model;
+        this.database = database;
+        this.nameColumn = nameColumn;
+        this.weightColumn = weightColumn;
+        this.onChange = onChange;
+        rebuild();
+        model.addTableModelListener(this);
+        database.addListener(this);
+    }
+
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        int first = e.getFirstRow();
+        int last = e.getLastRow();
+        if (first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE) {
+            // Szerkezeti változás vagy fireTableDataChanged: a teljes tükröt újraépítjük
+            rebuild();
+        } else if (e.getType() == TableModelEvent.INSERT) {
+            for (int i = first; i <= last; i++) {
+                Row row = new Row();
+                read(i, row);
+                rows.add(i, row);
+                apply(row, 1);
+            }
+        } else if (e.getType() == TableModelEvent.DELETE) {
+            for (int i = last; i >= first; i--) {
+                apply(rows.remove(i), -1);
+            }
+        } else {
+            for (int i = first; i <= last; i++) {
+                Row row = rows.get(i);
+                apply(row, -1);
+                read(i, row);
+                apply(row, 1);
+            }
+        }
+        changed();
+    }
+
+    @Override
+    public void ingredientChanged(String name, NutritionInfo info) {
+        // Az értesítés bármely szálról érkezhet, az összegeket az EDT-n frissítjük
+        SwingUtilities.invokeLater(() -> refreshIngredient(name));
+    }
+
+    @Override
+    public void ingredientRemoved(String name) {
+        SwingUtilities.invokeLater(() -> refreshIngredient(name));
+    }
+
+    /**
+     * A recept teljes súlya grammban
+     */
+    double getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Az első olyan összetevő neve, amely nem található az adatbázisban; null, ha nincs ilyen
+     */
+    String getFirstMissing() {
+        if (missingCount == 0) {
+            return null;
+        }
+        for (Row row : rows) {
+            if (row.info == null) {
+                return row.name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A 100g-ra vonatkoztatott tápérték a result pufferbe; hamis, ha nem számolható
+     * (üres recept, nulla összsúly vagy hiányzó összetevő)
+     */
+    boolean perHundredGrams(NutritionInfo result) {
+        if (rows.isEmpty() || totalWeight <= 0 || missingCount > 0) {
+            return false;
+        }
+        double factor = 100.0 / totalWeight;
+        for (int n = 0; n < totals.length; n++) {
+            result.setValue(n, totals[n] * factor);
+        }
+        return true;
+    }
+
+    private void refreshIngredient(String name) {
+        boolean found = false;
+        for (Row row : rows) {
+            if (name.equals(row.name)) {
+                apply(row, -1);
+                row.info = database.getNutritionInfo(name);
+                apply(row, 1);
+                found = true;
+            }
+        }
+        if (found) {
+            changed();
+        }
+    }
+
+    private void rebuild() {
+        rows.clear();
+        for (int n = 0; n < totals.length; n++) {
+            totals[n] = 0.0;
+        }
+        totalWeight = 0;
+        missingCount = 0;
+        for (int i = 0; i < model.getRowCount(); i++) {
+            Row row = new Row();
+            read(i, row);
+            rows.add(row);
+            apply(row, 1);
+        }
+    }
+
+    private void read(int index, Row row) {
+        row.name = (String) model.getValueAt(index, nameColumn);
+        Object weight = model.getValueAt(index, weightColumn);
+        row.weight = weight instanceof Number ? ((Number) weight).doubleValue() : 0.0;
+        row.info = row.name != null ? database.getNutritionInfo(row.name) : null;
+    }
+
+    /**
+     * Egy sor hozzájárulásának hozzáadása (sign = 1) vagy levonása (sign = -1)
+     */
+    private void apply(Row row, int sign) {
+        if (row.info == null) {
+            missingCount += sign;
+            return;
+        }
+        double factor = sign * row.weight / 100.0;
+        for (int n = 0; n < totals.length; n++) {
+            totals[n] += row.info.getValue(n) * factor;
+        }
+        totalWeight += sign * row.weight;
+    }
+
+    private void changed() {
+        if (rows.isEmpty()) {
+            // Üres táblánál a kerekítési maradékot is eldobjuk
+            for (int n = 0; n < totals.length; n++) {
+                totals[n] = 0.0;
+            }
+            totalWeight = 0;
+        }
+        onChange.run();
+    }
+}
@@ -0,0 +1,413 @@
+import java.util.Arrays;
+
+/**
+ * Kis, sűrű lineáris programok megoldása szimplex módszerrel:
+ *
+ *   min c·x,  A·x = b,  x >= 0
+ *
+ * Hideg indításkor kétfázisú primál szimplex fut (az első fázis mesterséges
+ * változókkal keres megengedett bázist). Meleg indításkor egy korábbi optimális
+ * bázisból indulunk: ha az a megváltozott jobb oldallal is megengedett, csak a
+ * második fázis fut, ha csak duál megengedett (tipikusan egy feltétel határának
+ * módosítása után), duál szimplex állítja helyre; egyébként hideg indítás következik.
+ *
+ * A pivotálás Dantzig szabállyal történik, degenerált lépések sorozata után Bland
+ * szabályra váltunk, hogy a módszer ne ciklizáljon. Nem szálbiztos.
+ */
+final class SimplexSolver {
+    enum Status { OPTIMAL, INFEASIBLE, UNBOUNDED }
+
+    private static final double EPSILON = 1e-9;
+    // Ennyi egymást követő degenerált lépés után Bland szabály
+    private static final int DEGENERATE_LIMIT = 50;
+
+    private final int rows;
+    private final int columns;
+    private final double[][] a;
+    private final double[] b;
+    private final double[] c;
+
+    // Tábla: rows sor a feltételeknek + egy sor a redukált költségeknek, az utolsó oszlop a jobb oldal
+    private double[][] tableau;
+    private int[] basis;
+    private int width;
+    private double[] solution;
+    private double objective;
+    private int iterations;
+    private boolean warmStarted;
+
+    SimplexSolver(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.a = new double[rows][columns];
+        this.b = new double[rows];
+        this.c = new double[columns];
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    int getColumns() {
+        return columns;
+    }
+
+    void set(int row, int column, double value) {
+        a[row][column] = value;
+    }
+
+    void setRightHandSide(int row, double value) {
+        b[row] = value;
+    }
+
+    void setCost(int column, double value) {
+        c[column] = value;
+    }
+
+    /**
+     * Megoldás; a warmBasis (lehet null) egy korábbi, azonos szerkezetű feladat bázisa
+     */
+    Status solve(int[] warmBasis) {
+        iterations = 0;
+        warmStarted = false;
+        solution = null;
+        if (warmBasis != null && warmBasis.length == rows && loadBasis(warmBasis)) {
+            if (primalFeasible()) {
+                warmStarted = true;
+                return finish(primal(columns));
+            }
+            if (dualFeasible()) {
+                warmStarted = true;
+                return finish(dual());
+            }
+        }
+        return coldStart();
+    }
+
+    /**
+     * Az optimális bázis (meleg indításhoz); null, ha nem használható
+     * (pl. redundáns feltétel miatt mesterséges változó maradt benne)
+     */
+    int[] getBasis() {
+        if (solution == null) {
+            return null;
+        }
+        for (int column : basis) {
+            if (column >= columns) {
+                return null;
+            }
+        }
+        return basis.clone();
+    }
+
+    double[] getSolution() {
+        return solution;
+    }
+
+    double getObjective() {
+        return objective;
+    }
+
+    int getIterations() {
+        return iterations;
+    }
+
+    boolean wasWarmStarted() {
+        return warmStarted;
+    }
+
+    private Status coldStart() {
+        // Mesterséges változó csak ott kell, ahol nincs kész egységoszlop (pl. eltérés változó)
+        int[] start = new int[rows];
+        int artificials = 0;
+        for (int r = 0; r < rows; r++) {
+            start[r] = unitColumn(r);
+            if (start[r] < 0) {
+                artificials++;
+            }
+        }
+        width = columns + artificials;
+        tableau = new double[rows + 1][width + 1];
+        basis = new int[rows];
+        int artificial = columns;
+        for (int r = 0; r < rows; r++) {
+            double sign = b[r] < 0 ? -1 : 1;
+            for (int j = 0; j < columns; j++) {
+                tableau[r][j] = sign * a[r][j];
+            }
+            tableau[r][width] = sign * b[r];
+            if (start[r] >= 0) {
+                basis[r] = start[r];
+            } else {
+                tableau[r][artificial] = 1;
+                basis[r] = artificial++;
+            }
+        }
+
+        // Első fázis: a mesterséges változók összegének minimalizálása
+        if (artificials > 0) {
+            double[] objectiveRow = tableau[rows];
+            for (int r = 0; r < rows; r++) {
+                if (basis[r] >= columns) {
+                    for (int j = 0; j <= width; j++) {
+                        if (j < columns || j == width) {
+                            objectiveRow[j] -= tableau[r][j];
+                        }
+                    }
+                }
+            }
+            primal(columns);
+            if (-tableau[rows][width] > EPSILON * Math.max(1, norm(b))) {
+                return Status.INFEASIBLE;
+            }
+            driveOutArtificials();
+        }
+
+        // Második fázis az eredeti költségekkel
+        reducedCosts();
+        return finish(primal(columns));
+    }
+
+    /**
+     * Olyan oszlop, amely csak az adott sorban nem nulla, ott (előjel korrekció után) 1
+     */
+    private int unitColumn(int row) {
+        double sign = b[row] < 0 ? -1 : 1;
+        for (int j = 0; j < columns; j++) {
+            if (sign * a[row][j] != 1) {
+                continue;
+            }
+            boolean unit = true;
+            for (int r = 0; r < rows && unit; r++) {
+                unit = r == row || a[r][j] == 0;
+            }
+            if (unit) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Nulla szinten bázisban maradt mesterséges változók kicserélése; ha a sorban
+     * nincs valódi változó, a feltétel redundáns, a sor csupa nulla marad
+     */
+    private void driveOutArtificials() {
+        for (int r = 0; r < rows; r++) {
+            if (basis[r] < columns) {
+                continue;
+            }
+            for (int j = 0; j < columns; j++) {
+                if (Math.abs(tableau[r][j]) > EPSILON) {
+                    pivot(r, j);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * A tábla felépítése egy megadott bázisból Gauss-Jordan eliminációval
+     */
+    private boolean loadBasis(int[] warmBasis) {
+        width = columns;
+        tableau = new double[rows + 1][width + 1];
+        basis = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(a[r], 0, tableau[r], 0, columns);
+            tableau[r][width] = b[r];
+        }
+        boolean[] assigned = new boolean[rows];
+        for (int column : warmBasis) {
+            if (column < 0 || column >= columns) {
+                return false;
+            }
+            int best = -1;
+            for (int r = 0; r < rows; r++) {
+                if (!assigned[r] && (best < 0 || Math.abs(tableau[r][column]) > Math.abs(tableau[best][column]))) {
+                    best = r;
+                }
+            }
+            if (Math.abs(tableau[best][column]) < EPSILON) {
+                return false; // szinguláris bázis
+            }
+            assigned[best] = true;
+            pivot(best, column);
+        }
+        iterations = 0;
+        reducedCosts();
+        return true;
+    }
+
+    private void reducedCosts() {
+        double[] objectiveRow = tableau[rows];
+        Arrays.fill(objectiveRow, 0);
+        System.arraycopy(c, 0, objectiveRow, 0, columns);
+        for (int r = 0; r < rows; r++) {
+            int column = basis[r];
+            double cost = column < columns ? c[column] : 0;
+            if (cost != 0) {
+                for (int j = 0; j <= width; j++) {
+                    objectiveRow[j] -= cost * tableau[r][j];
+                }
+            }
+        }
+    }
+
+    private boolean primalFeasible() {
+        for (int r = 0; r < rows; r++) {
+            if (tableau[r][width] < -EPSILON) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean dualFeasible() {
+        for (int j = 0; j < columns; j++) {
+            if (tableau[rows][j] < -EPSILON) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Primál szimplex; csak az első enterable oszlop előtti változók léphetnek a bázisba
+     */
+    private Status primal(int enterable) {
+        int degenerate = 0;
+        int limit = iterationLimit();
+        while (true) {
+            boolean bland = degenerate > DEGENERATE_LIMIT;
+            int entering = -1;
+            double best = -EPSILON;
+            for (int j = 0; j < enterable; j++) {
+                double d = tableau[rows][j];
+                if (d < best) {
+                    entering = j;
+                    if (bland) {
+                        break;
+                    }
+                    best = d;
+                }
+            }
+            if (entering < 0) {
+                return Status.OPTIMAL;
+            }
+
+            int leaving = -1;
+            double ratio = Double.POSITIVE_INFINITY;
+            for (int r = 0; r < rows; r++) {
+                double coefficient = tableau[r][entering];
+                if (coefficient > EPSILON) {
+                    double candidate = Math.max(0, tableau[r][width]) / coefficient;
+                    if (candidate < ratio - EPSILON
+                            || (candidate <= ratio + EPSILON && basis[r] < basis[leaving])) {
+                        ratio = candidate;
+                        leaving = r;
+                    }
+                }
+            }
+            if (leaving < 0) {
+                return Status.UNBOUNDED;
+            }
+            degenerate = ratio <= EPSILON ? degenerate + 1 : 0;
+            pivot(leaving, entering);
+            checkLimit(limit);
+        }
+    }
+
+    private Status dual() {
+        int limit = iterationLimit();
+        while (true) {
+            int leaving = -1;
+            double most = -EPSILON;
+            for (int r = 0; r < rows; r++) {
+                if (tableau[r][width] < most) {
+                    most = tableau[r][width];
+                    leaving = r;
+                }
+            }
+            if (leaving < 0) {
+                // A jobb oldal újra megengedett; a kerekítési hibák miatt primál lépésekkel zárunk
+                return primal(columns);
+            }
+
+            int entering = -1;
+            double ratio = Double.POSITIVE_INFINITY;
+            for (int j = 0; j < columns; j++) {
+                double coefficient = tableau[leaving][j];
+                if (coefficient < -EPSILON) {
+                    double candidate = Math.max(0, tableau[rows][j]) / -coefficient;
+                    if (candidate < ratio - EPSILON) {
+                        ratio = candidate;
+                        entering = j;
+                    }
+                }
+            }
+            if (entering < 0) {
+                return Status.INFEASIBLE;
+            }
+            pivot(leaving, entering);
+            checkLimit(limit);
+        }
+    }
+
+    private void pivot(int row, int column) {
+        iterations++;
+        double[] pivotRow = tableau[row];
+        double inverse = 1 / pivotRow[column];
+        for (int j = 0; j <= width; j++) {
+            pivotRow[j] *= inverse;
+        }
+        pivotRow[column] = 1;
+        for (int r = 0; r <= rows; r++) {
+            double[] target = tableau[r];
+            double factor = target[column];
+            if (r == row || factor == 0) {
+                continue;
+            }
+            for (int j = 0; j <= width; j++) {
+                target[j] -= factor * pivotRow[j];
+            }
+            target[column] = 0;
+        }
+        basis[row] = column;
+    }
+
+    private int iterationLimit() {
+        return iterations + 50 * (rows + width);
+    }
+
+    private void checkLimit(int limit) {
+        if (iterations > limit) {
+            throw new IllegalStateException("A szimplex módszer nem konvergált " + iterations + " lépés alatt.");
+        }
+    }
+
+    private Status finish(Status status) {
+        if (status != Status.OPTIMAL) {
+            return status;
+        }
+        solution = new double[columns];
+        for (int r = 0; r < rows; r++) {
+            if (basis[r] < columns) {
+                solution[basis[r]] = Math.max(0, tableau[r][width]);
+            }
+        }
+        objective = 0;
+        for (int j = 0; j < columns; j++) {
+            objective += c[j] * solution[j];
+        }
+        return status;
+    }
+
+    private static double norm(double[] values) {
+        double max = 0;
+        for (double value : values) {
+            max = Math.max(max, Math.abs(value));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,117 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A HTTP szolgáltatás végpontjai és terheléskorlátja, helyi kapcsolatokon
+ */
+class NutritionServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final List<Socket> stalled = new ArrayList<>();
+    private NutritionServer server;
+
+    @AfterEach
+    void stopServer() throws IOException {
+        for (Socket socket : stalled) {
+            socket.close();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    void calculatesRepeatedRecipes() throws Exception {
+        start(4, 16);
+        String recipe = "{\"ingredients\":{\"teszt liszt\":200,\"teszt cukor\":50}}";
+        for (int i = 0; i < 20; i++) {
+            HttpResponse<String> response = post("/calculate", recipe);
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("\"totalWeight\":250.0"), response.body());
+        }
+    }
+
+    @Test
+    void reportsInvalidRequests() throws Exception {
+        start(4, 16);
+        assertEquals(400, post("/calculate", "{nem json").statusCode());
+        assertEquals(400, post("/calculate", "{\"ingredients\":{\"teszt liszt\":\"sok\"}}").statusCode());
+        assertEquals(404, get("/ingredients?name=nincs%20ilyen").statusCode());
+        assertEquals(405, get("/calculate").statusCode());
+    }
+
+    @Test
+    void rejectsRequestsWhenQueueIsFull() throws Exception {
+        // Egy szál, kettős várakozási sor: az első kérés a szálat, a következő kettő a sort foglalja
+        start(1, 2);
+        stall();
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (server.getRequestCount() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        stall();
+        stall();
+        Thread.sleep(300);
+
+        // A megtelt sor miatt az elfogadó szál azonnal 503-mal válaszol, a végpontot nem futtatja
+        HttpResponse<String> response = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> get("/ingredients?q=liszt"));
+        assertEquals(503, response.statusCode());
+        assertEquals("1", response.headers().firstValue("Retry-After").orElse(null));
+        assertTrue(server.getRejectedCount() >= 1);
+    }
+
+    private void start(int threads, int maxConcurrent) throws IOException {
+        NutritionDatabase database = new NutritionDatabase();
+        NutritionInfo flour = new NutritionInfo();
+        flour.setValue(NutritionInfo.PROTEIN, 10);
+        database.addIngredient("teszt liszt", flour);
+        NutritionInfo sugar = new NutritionInfo();
+        sugar.setValue(NutritionInfo.CARBS, 100);
+        database.addIngredient("teszt cukor", sugar);
+
+        server = new NutritionServer(database, 0, threads, maxConcurrent);
+        server.start();
+    }
+
+    /**
+     * Kérés, amelynek a törzse sosem érkezik meg: a kiszolgáló szál az olvasásban várakozik
+     */
+    private void stall() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        stalled.add(socket);
+        OutputStream out = socket.getOutputStream();
+        out.write(("POST /calculate HTTP/1.1\r\nHost: localhost\r\nContent-Length: 100\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
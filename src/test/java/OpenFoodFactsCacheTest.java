@@ -0,0 +1,101 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenFoodFactsCacheTest {
+    private static final long HOUR = 60 * 60 * 1000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void countsMemoryHitsAndMisses() {
+        OpenFoodFactsCache cache = new OpenFoodFactsCache(16, null, HOUR, Long.MAX_VALUE);
+        assertNull(cache.get("kenyér|10"));
+        cache.put("kenyér|10", bytes("a"));
+        assertArrayEquals(bytes("a"), cache.get("kenyér|10"));
+        assertArrayEquals(bytes("a"), cache.get("kenyér|10"));
+
+        assertEquals(2, cache.getMemoryHits());
+        assertEquals(0, cache.getDiskHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void normalizesKeys() {
+        assertEquals(OpenFoodFactsCache.key("  Teljes   KIŐRLÉSŰ ", 10), OpenFoodFactsCache.key("teljes kiőrlésű", 10));
+        assertTrue(!OpenFoodFactsCache.key("kenyér", 10).equals(OpenFoodFactsCache.key("kenyér", 20)));
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() throws InterruptedException {
+        OpenFoodFactsCache cache = new OpenFoodFactsCache(16, directory, 50, Long.MAX_VALUE);
+        cache.put("a|10", bytes("a"));
+        assertNotNull(cache.get("a|10"));
+        Thread.sleep(120);
+
+        // Sem a memória, sem a lemez szint nem adhatja vissza a lejárt választ
+        assertNull(cache.get("a|10"));
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getDiskBytes());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedFromMemory() {
+        OpenFoodFactsCache cache = new OpenFoodFactsCache(2, null, HOUR, Long.MAX_VALUE);
+        cache.put("a|10", bytes("a"));
+        cache.put("b|10", bytes("b"));
+        cache.get("a|10");
+        cache.put("c|10", bytes("c"));
+
+        assertNotNull(cache.get("a|10"));
+        assertNotNull(cache.get("c|10"));
+        assertNull(cache.get("b|10"));
+    }
+
+    @Test
+    void evictsOldestFilesWhenOverSizeLimit() throws InterruptedException {
+        byte[] body = new byte[1000];
+        OpenFoodFactsCache cache = new OpenFoodFactsCache(1, directory, HOUR, 2500);
+        cache.put("a|10", body);
+        Thread.sleep(20);
+        cache.put("b|10", body);
+        Thread.sleep(20);
+        cache.put("c|10", body);
+
+        assertTrue(cache.getEvictions() >= 1);
+        assertTrue(cache.getDiskBytes() <= 2500);
+        // A legrégebbi fájl törlődött, a legutóbbi a lemezen (és a memóriában) megmaradt
+        OpenFoodFactsCache reloaded = new OpenFoodFactsCache(1, directory, HOUR, 2500);
+        assertNull(reloaded.get("a|10"));
+        assertNotNull(reloaded.get("c|10"));
+    }
+
+    @Test
+    void reloadsDiskTier() {
+        OpenFoodFactsCache cache = new OpenFoodFactsCache(16, directory, HOUR, Long.MAX_VALUE);
+        cache.put("kenyér|10", bytes("{\"products\":[]}"));
+        long diskBytes = cache.getDiskBytes();
+
+        OpenFoodFactsCache reloaded = new OpenFoodFactsCache(16, directory, HOUR, Long.MAX_VALUE);
+        assertEquals(diskBytes, reloaded.getDiskBytes());
+        assertArrayEquals(bytes("{\"products\":[]}"), reloaded.get("kenyér|10"));
+        assertEquals(1, reloaded.getDiskHits());
+
+        // A lemezről betöltött válasz ezután a memóriából jön
+        reloaded.get("kenyér|10");
+        assertEquals(1, reloaded.getMemoryHits());
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,178 @@
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A kliens és a gyorsítótár együtt, helyi csonk HTTP szerver ellen
+ */
+class OpenFoodFactsClientTest {
+    private static final long HOUR = 60 * 60 * 1000;
+    private static final String RESPONSE = "{\"count\":1,\"products\":[{\"code\":\"599\","
+            + "\"product_name\":\"Teljes kiőrlésű kenyér\",\"nutriments\":{\"proteins_100g\":9.5,\"salt_100g\":1.1}}]}";
+
+    @TempDir
+    Path directory;
+
+    private HttpServer server;
+    private ExecutorService handlers;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile int status = 200;
+    // Igaz esetén a szerver a fejlécek és a törzs fele után megakad
+    private volatile boolean stall;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/cgi/search.pl", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (stall) {
+                    out.write(body, 0, body.length / 2);
+                    out.flush();
+                    release.await();
+                    return;
+                }
+                out.write(body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        handlers = Executors.newCachedThreadPool();
+        server.setExecutor(handlers);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    @Test
+    void servesRepeatedSearchesFromCache() throws Exception {
+        OpenFoodFactsCache cache = new OpenFoodFactsCache(16, directory, HOUR, Long.MAX_VALUE);
+        OpenFoodFactsClient client = new OpenFoodFactsClient(baseUrl(), cache);
+
+        List<FoodProduct> first = client.search("Kenyér", 10);
+        List<FoodProduct> second = client.search("  kenyér ", 10);
+
+        assertEquals(1, requests.get());
+        assertEquals(1, first.size());
+        assertEquals("Teljes kiőrlésű kenyér", second.get(0).getName());
+        assertEquals(9.5, second.get(0).getNutritionInfo().getValue("protein"), 1e-9);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getMemoryHits());
+    }
+
+    @Test
+    void reloadsResponsesFromDiskTier() throws Exception {
+        new OpenFoodFactsClient(baseUrl(), new OpenFoodFactsCache(16, directory, HOUR, Long.MAX_VALUE))
+                .search("kenyér", 10);
+
+        OpenFoodFactsCache reloaded = new OpenFoodFactsCache(16, directory, HOUR, Long.MAX_VALUE);
+        List<FoodProduct> products = new OpenFoodFactsClient(baseUrl(), reloaded).search("kenyér", 10);
+
+        assertEquals(1, requests.get());
+        assertEquals(1, products.size());
+        assertEquals(1, reloaded.getDiskHits());
+    }
+
+    @Test
+    void refetchesAfterTtl() throws Exception {
+        OpenFoodFactsCache cache = new OpenFoodFactsCache(16, directory, 50, Long.MAX_VALUE);
+        OpenFoodFactsClient client = new OpenFoodFactsClient(baseUrl(), cache);
+        client.search("kenyér", 10);
+        Thread.sleep(120);
+        client.search("kenyér", 10);
+
+        assertEquals(2, requests.get());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void doesNotCacheErrorResponses() {
+        status = 503;
+        OpenFoodFactsCache cache = new OpenFoodFactsCache(16, directory, HOUR, Long.MAX_VALUE);
+        OpenFoodFactsClient client = new OpenFoodFactsClient(baseUrl(), cache);
+
+        assertThrows(IOException.class, () -> client.search("kenyér", 10));
+        assertThrows(IOException.class, () -> client.search("kenyér", 10));
+        assertEquals(2, requests.get());
+        assertEquals(0, cache.getDiskBytes());
+    }
+
+    @Test
+    void timesOutStalledBodyWithCache() {
+        stall = true;
+        OpenFoodFactsClient client = new OpenFoodFactsClient(baseUrl(),
+                new OpenFoodFactsCache(16, directory, HOUR, Long.MAX_VALUE),
+                HttpClient.newHttpClient(), Duration.ofMillis(500));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(IOException.class, () -> client.search("kenyér", 10)));
+    }
+
+    @Test
+    void completesLongRunsOfCachedSearchesWithoutRecursion() throws Exception {
+        OpenFoodFactsClient client = new OpenFoodFactsClient(baseUrl(),
+                new OpenFoodFactsCache(16, null, HOUR, Long.MAX_VALUE));
+        client.search("kenyér", 10);
+
+        // Minden további keresés gyorsítótár találat, tehát már kész future
+        List<String> queries = new ArrayList<>(Collections.nCopies(20_000, "kenyér"));
+        List<CompletableFuture<List<FoodProduct>>> results = client.searchAll(queries, 10, 2);
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, requests.get());
+        for (CompletableFuture<List<FoodProduct>> result : results) {
+            assertTrue(result.isDone() && !result.isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    void timesOutStalledStreamWithoutCache() throws IOException {
+        stall = true;
+        OpenFoodFactsClient client = new OpenFoodFactsClient(baseUrl(), null,
+                HttpClient.newHttpClient(), Duration.ofMillis(500));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> assertThrows(IOException.class, () -> client.search("kenyér", 10)));
+
+        // A lezárt folyam felszabadította a feldolgozó szálat, a következő keresés működik
+        stall = false;
+        assertEquals(1, client.search("kenyér", 10).size());
+    }
+}